@@ -10,5 +10,8 @@ export const config = {
   tokenExpiry: process.env.TOKEN_EXPIRY || '12h',
   resetTokenExpiryMinutes: Number(process.env.RESET_TOKEN_EXPIRY_MINUTES || 15),
   exposeResetToken: process.env.EXPOSE_RESET_TOKEN === 'true',
+  idempotencyTtlMinutes: Number(process.env.IDEMPOTENCY_TTL_MINUTES || 60),
+  idempotencyMaxKeys: Number(process.env.IDEMPOTENCY_MAX_KEYS || 50000),
+  artifactMaxBytes: Number(process.env.ARTIFACT_MAX_BYTES || 10 * 1024 * 1024),
   allowOrigins: (process.env.CORS_ORIGINS || '*').split(',').map((o) => o.trim()),
 };
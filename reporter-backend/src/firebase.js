@@ -63,8 +63,41 @@ if (useFirebase && firebaseApp) {
   db = createMockFirestore();
 }
 
+// Marks a field transform in the mock; Firestore uses admin.firestore.FieldValue instead
+const TRANSFORM = Symbol('transform');
+
+// Atomic server-side updates, so concurrent requests don't overwrite each other's counts
+export function increment(n) {
+  return useFirebase ? admin.firestore.FieldValue.increment(n) : { [TRANSFORM]: 'increment', n };
+}
+
+export function arrayUnion(...values) {
+  return useFirebase ? admin.firestore.FieldValue.arrayUnion(...values) : { [TRANSFORM]: 'arrayUnion', values };
+}
+
+function applyTransforms(existing, data) {
+  const result = { ...existing };
+  Object.entries(data).forEach(([key, value]) => {
+    if (value?.[TRANSFORM] === 'increment') {
+      result[key] = (Number(existing?.[key]) || 0) + value.n;
+    } else if (value?.[TRANSFORM] === 'arrayUnion') {
+      result[key] = Array.from(new Set([...(existing?.[key] || []), ...value.values]));
+    } else {
+      result[key] = value;
+    }
+  });
+  return result;
+}
+
+// Same shape as Firestore's error for an update of a missing document
+function notFound(docPath) {
+  return Object.assign(new Error(`5 NOT_FOUND: No document to update: ${docPath}`), { code: 5 });
+}
+
 function createMockFirestore() {
   const collections = {};
+  // Transactions run one at a time, which is what Firestore's retries amount to for one process
+  let transactions = Promise.resolve();
   
   return {
     collection: (name) => {
@@ -73,20 +106,22 @@ function createMockFirestore() {
       }
       return {
         doc: (id) => ({
-          set: async (data) => {
+          set: async (data, options) => {
             if (!collections[name]) collections[name] = new Map();
-            collections[name].set(id, { ...data, id });
+            const existing = options?.merge ? collections[name].get(id) : undefined;
+            collections[name].set(id, { ...applyTransforms(existing, data), id });
           },
           get: async () => ({
             exists: collections[name]?.has(id),
             data: () => collections[name]?.get(id),
           }),
           update: async (data) => {
-            if (collections[name]?.has(id)) {
-              const existing = collections[name].get(id);
-              collections[name].set(id, { ...existing, ...data });
-            }
+            if (!collections[name]?.has(id)) throw notFound(`${name}/${id}`);
+            const existing = collections[name].get(id);
+            collections[name].set(id, applyTransforms(existing, data));
           },
+          path: `${name}/${id}`,
+          exists: () => collections[name]?.has(id),
           delete: async () => {
             collections[name]?.delete(id);
           },
@@ -159,6 +194,47 @@ function createMockFirestore() {
         }),
       };
     },
+    batch: () => {
+      const ops = [];
+      const batch = {
+        set: (ref, data, options) => { ops.push({ ref, kind: 'set', op: () => ref.set(data, options) }); return batch; },
+        update: (ref, data) => { ops.push({ ref, kind: 'update', op: () => ref.update(data) }); return batch; },
+        delete: (ref) => { ops.push({ ref, kind: 'delete', op: () => ref.delete() }); return batch; },
+        commit: async () => {
+          // Like Firestore, an update of a missing document fails the whole batch before any write
+          const created = new Set();
+          ops.forEach(({ ref, kind }) => {
+            if (kind === 'set') created.add(ref.path);
+            else if (kind === 'update' && !created.has(ref.path) && !ref.exists()) throw notFound(ref.path);
+          });
+          for (const { op } of ops) {
+            // eslint-disable-next-line no-await-in-loop
+            await op();
+          }
+        },
+      };
+      return batch;
+    },
+    runTransaction: (updateFunction) => {
+      const run = transactions.then(async () => {
+        const writes = [];
+        const transaction = {
+          get: (ref) => ref.get(),
+          set: (ref, data, options) => { writes.push(() => ref.set(data, options)); return transaction; },
+          update: (ref, data) => { writes.push(() => ref.update(data)); return transaction; },
+          delete: (ref) => { writes.push(() => ref.delete()); return transaction; },
+        };
+        // Writes are buffered and applied after the function returns, as in Firestore
+        const result = await updateFunction(transaction);
+        for (const write of writes) {
+          // eslint-disable-next-line no-await-in-loop
+          await write();
+        }
+        return result;
+      });
+      transactions = run.catch(() => {});
+      return run;
+    },
     settings: () => {},
   };
 }
@@ -8,6 +8,7 @@ import authRoutes from './routes/auth.js';
 import executionRoutes from './routes/executions.js';
 import userRoutes from './routes/users.js';
 import { authenticate } from './middleware/auth.js';
+import { idempotency } from './middleware/idempotency.js';
 
 const app = express();
 app.use(helmet());
@@ -18,9 +19,13 @@ app.use(morgan('dev'));
 app.get('/health', (_req, res) => res.json({ status: 'ok', time: new Date().toISOString() }));
 app.use('/api/auth', authRoutes);
 app.use('/api/users', userRoutes);
-app.use('/api/executions', authenticate, executionRoutes);
+app.use('/api/executions', authenticate, idempotency, executionRoutes);
 
 app.use((err, _req, res, _next) => {
+  // Body parser errors (e.g. 413 for an oversized body) carry their own client error status
+  if (err.expose && err.status >= 400 && err.status < 500) {
+    return res.status(err.status).json({ message: err.message });
+  }
   // eslint-disable-next-line no-console
   console.error('Error:', err);
   return res.status(500).json({ message: 'Internal server error', detail: err.message });
@@ -0,0 +1,54 @@
+// Fan-out of applied run events to live viewers (Server-Sent Events), keyed by run document id.
+// Viewers only need to know what changed, so inline screenshots are replaced by a flag. Uploaded
+// screenshots travel as their hash, which the page loads from the artifact endpoint when shown.
+const viewers = new Map(); // runId -> Set<res>
+
+const HEARTBEAT_MS = 15000;
+
+function summarize(event) {
+  const { type, testCaseId, data = {} } = event || {};
+  const { screenshot, ...rest } = data;
+  return { type, testCaseId, data: screenshot ? { ...rest, hasScreenshot: true } : rest };
+}
+
+// Lets routes skip resolving the run id when nobody is watching any run
+export function watching() {
+  return viewers.size > 0;
+}
+
+// Keeps `res` open as an event stream until the client goes away
+export function subscribe(runId, req, res) {
+  res.set({
+    'Content-Type': 'text/event-stream',
+    'Cache-Control': 'no-cache',
+    Connection: 'keep-alive',
+    'X-Accel-Buffering': 'no',
+  });
+  res.flushHeaders();
+  res.write(': connected\n\n');
+
+  if (!viewers.has(runId)) viewers.set(runId, new Set());
+  viewers.get(runId).add(res);
+
+  const heartbeat = setInterval(() => res.write(': ping\n\n'), HEARTBEAT_MS);
+  req.on('close', () => {
+    clearInterval(heartbeat);
+    const set = viewers.get(runId);
+    if (!set) return;
+    set.delete(res);
+    if (set.size === 0) viewers.delete(runId);
+  });
+}
+
+export function publish(runId, name, payload) {
+  const set = viewers.get(runId);
+  if (!set) return;
+  const frame = `event: ${name}\ndata: ${JSON.stringify(payload)}\n\n`;
+  set.forEach((res) => res.write(frame));
+}
+
+// Events in the client's envelope shape: { type, testCaseId, data }
+export function relay(runId, events) {
+  if (!viewers.has(runId) || events.length === 0) return;
+  publish(runId, 'events', events.map(summarize));
+}
@@ -0,0 +1,97 @@
+import { config } from '../config.js';
+
+// key -> { expiresAt, status, body } once answered, or { expiresAt, pending } while in flight.
+// Map iteration order is insertion order, so the first entry is always the oldest.
+const entries = new Map();
+
+// What a retry needs from the first answer: the created record's id and the short fields
+// clients read. Whole records can carry inline screenshots and must not be kept per key.
+const REPLAYED_FIELDS = ['id', 'runId', 'sha256', 'applied', 'duplicates', 'maxEvents', 'message'];
+
+function minimal(body) {
+  if (!body || typeof body !== 'object' || Array.isArray(body)) return {};
+  const kept = {};
+  REPLAYED_FIELDS.forEach((field) => {
+    const value = body[field];
+    if (value !== undefined && (value === null || typeof value !== 'object')) kept[field] = value;
+  });
+  return kept;
+}
+
+function scoped(req, key) {
+  return `${req.user?.id || 'anonymous'}:${key}`;
+}
+
+function remember(key, entry) {
+  entries.delete(key);
+  entries.set(key, entry);
+  while (entries.size > config.idempotencyMaxKeys) {
+    entries.delete(entries.keys().next().value);
+  }
+}
+
+function lookup(key) {
+  const entry = entries.get(key);
+  if (entry && entry.expiresAt <= Date.now()) {
+    entries.delete(key);
+    return null;
+  }
+  return entry || null;
+}
+
+function expiry() {
+  return Date.now() + config.idempotencyTtlMinutes * 60 * 1000;
+}
+
+// Replays the stored response for a repeated Idempotency-Key instead of re-running the handler,
+// so a client retry after a lost response does not apply the same event twice
+export function idempotency(req, res, next) {
+  const key = req.get('Idempotency-Key');
+  if (!key || req.method !== 'POST') return next();
+  const scopedKey = scoped(req, key);
+
+  const existing = lookup(scopedKey);
+  if (existing?.pending) {
+    return existing.pending.then(() => idempotency(req, res, next));
+  }
+  if (existing) {
+    res.set('Idempotent-Replayed', 'true');
+    return res.status(existing.status).json(existing.body);
+  }
+
+  let settle;
+  const pending = new Promise((resolve) => { settle = resolve; });
+  remember(scopedKey, { expiresAt: expiry(), pending });
+
+  const json = res.json.bind(res);
+  res.json = (body) => {
+    // Server errors are not stored, so the retry runs the handler again
+    if (res.statusCode < 500) {
+      remember(scopedKey, { expiresAt: expiry(), status: res.statusCode, body: minimal(body) });
+    } else {
+      entries.delete(scopedKey);
+    }
+    settle();
+    return json(body);
+  };
+  res.on('close', () => {
+    if (entries.get(scopedKey)?.pending === pending) {
+      entries.delete(scopedKey);
+      settle();
+    }
+  });
+  return next();
+}
+
+// Per-event keys inside a bulk request: drop events that were already applied
+export function filterApplied(req, events) {
+  return events.filter((event) => !event.idempotencyKey || !lookup(scoped(req, event.idempotencyKey)));
+}
+
+export function markApplied(req, events) {
+  events.forEach((event) => {
+    if (event.idempotencyKey) {
+      remember(scoped(req, event.idempotencyKey), { expiresAt: expiry(), status: 201, body: { applied: true } });
+    }
+  });
+}
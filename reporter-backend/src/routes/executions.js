@@ -1,93 +1,306 @@
+import crypto from 'crypto';
 import express from 'express';
-import { executionStore } from '../store/executionStore.js';
+import readline from 'readline';
+import zlib from 'zlib';
+import { config } from '../config.js';
+import { executionStore, MAX_BATCH_EVENTS } from '../store/executionStore.js';
+import { filterApplied, markApplied } from '../middleware/idempotency.js';
+import { publish, relay, subscribe, watching } from '../live/runFeed.js';
 
 const router = express.Router();
 
+// Events applied per write while a stream is being read
+const STREAM_CHUNK = MAX_BATCH_EVENTS;
+
+// Clients that read the run's document id from the start response send it with this header;
+// their requests skip resolving the run and checking that the run and test case exist
+function trustedIds(req) {
+  return req.get('X-Reporter-Ids') === 'canonical';
+}
+
+// Express 4 ignores a rejected handler promise; hand it to the error middleware instead, which
+// answers 500 and so also releases the request's Idempotency-Key
+function handle(fn) {
+  return (req, res, next) => fn(req, res, next).catch(next);
+}
+
+// Resolving the run id costs a read, so only do it while someone is watching
+async function relayTo(runIdentifier, events, trusted) {
+  if (!watching()) return;
+  const runDocId = await executionStore.runDocIdFor(runIdentifier, trusted);
+  if (runDocId) relay(runDocId, events);
+}
+
+function relayQuietly(runIdentifier, events, trusted = false) {
+  relayTo(runIdentifier, events, trusted).catch((error) => console.error('Error relaying run events:', error));
+}
+
+function relaySummary(runIdentifier, summary, trusted) {
+  if (!watching()) return;
+  executionStore.runDocIdFor(runIdentifier, trusted)
+    .then((runDocId) => runDocId && publish(runDocId, 'summary', summary))
+    .catch((error) => console.error('Error relaying run summary:', error));
+}
+
 // Start a new execution run
-router.post('/runs/start', async (req, res) => {
+router.post('/runs/start', handle(async (req, res) => {
   const { runId, browser, tags, suiteName, environment } = req.body || {};
   if (!browser) {
     return res.status(400).json({ message: 'browser is required' });
   }
   const record = await executionStore.startRun({ runId, browser, tags, suiteName, environment });
   return res.status(201).json(record);
-});
+}));
 
 // Start a test case within a run
-router.post('/runs/:runId/test-cases/start', async (req, res) => {
+router.post('/runs/:runId/test-cases/start', handle(async (req, res) => {
   const { runId } = req.params;
   const { testCaseId, testName, tags } = req.body || {};
   if (!testName) {
     return res.status(400).json({ message: 'testName is required' });
   }
-  const testCase = await executionStore.startTestCase(runId, { testCaseId, testName, tags });
+  const trusted = trustedIds(req);
+  const testCase = await executionStore.startTestCase(runId, { testCaseId, testName, tags }, { trusted });
   if (!testCase) return res.status(404).json({ message: 'Run not found' });
+  relayQuietly(runId, [{ type: 'testCaseStart', testCaseId: testCase.id, data: { testName, tags: testCase.tags } }], trusted);
   return res.status(201).json(testCase);
-});
+}));
 
 // Log a step within a test case
-router.post('/runs/:runId/test-cases/:testCaseId/step', async (req, res) => {
+router.post('/runs/:runId/test-cases/:testCaseId/step', handle(async (req, res) => {
   const { runId, testCaseId } = req.params;
-  const { stepName, status, screenshot, error } = req.body || {};
+  const { stepName, status, screenshot, screenshotHash, error } = req.body || {};
   if (!stepName || !status) {
     return res.status(400).json({ message: 'stepName and status are required' });
   }
-  const step = await executionStore.appendStep(runId, testCaseId, { stepName, status, screenshot, error });
+  const trusted = trustedIds(req);
+  const step = await executionStore.appendStep(runId, testCaseId, {
+    stepName, status, screenshot, screenshotHash, error,
+  }, { trusted });
   if (!step) return res.status(404).json({ message: 'Run or test case not found' });
+  relayQuietly(runId, [{ type: 'step', testCaseId, data: { stepName, status, screenshot, screenshotHash, error } }], trusted);
   return res.status(201).json(step);
-});
+}));
 
 // Log an error for a test case
-router.post('/runs/:runId/test-cases/:testCaseId/error', async (req, res) => {
+router.post('/runs/:runId/test-cases/:testCaseId/error', handle(async (req, res) => {
   const { runId, testCaseId } = req.params;
-  const { stepName, error, screenshot } = req.body || {};
+  const {
+    stepName, error, screenshot, screenshotHash, fingerprint, errorHeadline,
+  } = req.body || {};
+  const trusted = trustedIds(req);
   const step = await executionStore.appendStep(runId, testCaseId, {
     stepName: stepName || 'Error',
     status: 'FAIL',
     screenshot,
+    screenshotHash,
     error,
-  });
+    fingerprint,
+    errorHeadline,
+  }, { trusted });
   if (!step) return res.status(404).json({ message: 'Run or test case not found' });
-  await executionStore.finishTestCase(runId, testCaseId, 'FAIL');
+  await executionStore.finishTestCase(runId, testCaseId, 'FAIL', { trusted });
+  relayQuietly(runId, [{
+    type: 'error',
+    testCaseId,
+    data: {
+      stepName, error, screenshot, screenshotHash, fingerprint, errorHeadline,
+    },
+  }], trusted);
   return res.status(201).json(step);
-});
+}));
+
+// Apply a batch of test case events (start, step, error, finish) in one write
+router.post('/runs/:runId/events/batch', handle(async (req, res) => {
+  const { runId } = req.params;
+  const { events } = req.body || {};
+  if (!Array.isArray(events)) {
+    return res.status(400).json({ message: 'events array is required' });
+  }
+  // One request is one atomic write, so it is either applied and marked as such or not at all
+  if (events.length > MAX_BATCH_EVENTS) {
+    return res.status(413).json({ message: `At most ${MAX_BATCH_EVENTS} events per batch`, maxEvents: MAX_BATCH_EVENTS });
+  }
+  // Events carry their own keys because the client may resend them in a differently composed batch
+  const fresh = filterApplied(req, events);
+  const trusted = trustedIds(req);
+  const result = await executionStore.applyEventBatch(runId, fresh, { trusted });
+  if (!result) return res.status(404).json({ message: 'Run not found' });
+  markApplied(req, fresh);
+  relayQuietly(runId, fresh, trusted);
+  return res.status(201).json({ ...result, duplicates: events.length - fresh.length });
+}));
+
+// Apply NDJSON events (one batch envelope per line) while the body is still arriving, so live
+// viewers see them immediately. The response, sent when the body ends, reports how many
+// leading lines were applied; the client resends the rest with their idempotency keys.
+router.post('/runs/:runId/stream', handle(async (req, res) => {
+  const encoding = (req.headers['content-encoding'] || 'identity').toLowerCase();
+  if (encoding !== 'identity' && encoding !== 'gzip') {
+    req.resume();
+    return res.status(415).json({ message: `Unsupported Content-Encoding: ${encoding}`, applied: 0 });
+  }
+  const runDocId = await executionStore.runDocIdFor(req.params.runId, trustedIds(req));
+  if (!runDocId) {
+    req.resume();
+    return res.status(404).json({ message: 'Run not found', applied: 0 });
+  }
+
+  const queue = [];
+  let applied = 0;
+  let malformed = false;
+  let failure = null;
+  let working = null;
+
+  const drain = async () => {
+    while (queue.length > 0) {
+      const events = queue.splice(0, STREAM_CHUNK);
+      const fresh = filterApplied(req, events);
+      await executionStore.applyEventBatch(runDocId, fresh, { trusted: true });
+      markApplied(req, fresh);
+      applied += events.length;
+      relay(runDocId, fresh);
+    }
+  };
+  // A single worker keeps writes in line order; lines arriving meanwhile form the next chunk
+  const kick = () => {
+    if (working || failure) return;
+    working = drain()
+      .catch((error) => { failure = error; })
+      .finally(() => {
+        working = null;
+        if (queue.length > 0) kick();
+      });
+  };
+
+  // A gzip stream is one member sync-flushed per line, so each line inflates as it arrives
+  let input = req;
+  if (encoding === 'gzip') {
+    input = req.pipe(zlib.createGunzip());
+    input.on('error', () => {
+      malformed = true;
+      lines.close();
+    });
+  }
+  const lines = readline.createInterface({ input, crlfDelay: Infinity });
+  req.on('aborted', () => lines.close());
+  try {
+    for await (const line of lines) {
+      if (malformed || failure || !line.trim()) continue;
+      try {
+        queue.push(JSON.parse(line));
+      } catch {
+        // Later lines are not applied either, so `applied` stays a prefix of the stream
+        malformed = true;
+        continue;
+      }
+      kick();
+    }
+  } catch (error) {
+    failure = failure || error;
+  }
+  while (working) await working;
+
+  if (failure) {
+    console.error('Error applying event stream:', failure);
+    return res.status(500).json({ message: 'Internal server error', detail: failure.message, applied });
+  }
+  if (malformed) return res.status(400).json({ message: 'Malformed event line', applied });
+  return res.json({ applied });
+}));
+
+// Live run progress as Server-Sent Events; the connection stays open until the viewer leaves
+router.get('/runs/:runId/live', handle(async (req, res) => {
+  const runDocId = await executionStore.resolveRunDocId(req.params.runId);
+  if (!runDocId) return res.status(404).json({ message: 'Run not found' });
+  return subscribe(runDocId, req, res);
+}));
 
 // Finish a test case
-router.post('/runs/:runId/test-cases/:testCaseId/finish', async (req, res) => {
+router.post('/runs/:runId/test-cases/:testCaseId/finish', handle(async (req, res) => {
   const { runId, testCaseId } = req.params;
   const { status } = req.body || {};
-  const testCase = await executionStore.finishTestCase(runId, testCaseId, status || 'PASS');
+  const trusted = trustedIds(req);
+  const testCase = await executionStore.finishTestCase(runId, testCaseId, status || 'PASS', { trusted });
   if (!testCase) return res.status(404).json({ message: 'Run or test case not found' });
+  relayQuietly(runId, [{ type: 'testCaseFinish', testCaseId, data: { status: status || 'PASS' } }], trusted);
   return res.json(testCase);
-});
+}));
+
+// Store the client-side summary (cumulative, sequence-numbered); its totals become the run's counters
+router.post('/runs/:runId/summary', handle(async (req, res) => {
+  const { runId } = req.params;
+  const summary = req.body || {};
+  if (!Number.isFinite(Number(summary.sequence)) || typeof summary.total !== 'object') {
+    return res.status(400).json({ message: 'sequence and total are required' });
+  }
+  const trusted = trustedIds(req);
+  const result = await executionStore.applySummary(runId, summary, { trusted });
+  if (!result) return res.status(404).json({ message: 'Run not found' });
+  if (result.applied) relaySummary(runId, summary, trusted);
+  return res.json(result);
+}));
 
 // Finish an execution run
-router.post('/runs/:runId/finish', async (req, res) => {
+router.post('/runs/:runId/finish', handle(async (req, res) => {
   const { runId } = req.params;
   const { status } = req.body || {};
-  const run = await executionStore.finishRun(runId, status || 'PASS');
+  const run = await executionStore.finishRun(runId, status || 'PASS', { trusted: trustedIds(req) });
   if (!run) return res.status(404).json({ message: 'Run not found' });
+  // finishRun returns the run as it was before finishing; viewers refetch the final state
+  if (watching()) publish(run.id, 'runFinished', { status: status || null });
   return res.json(run);
-});
+}));
+
+// Upload a content-addressed artifact (raw screenshot bytes); re-uploads are idempotent.
+// Larger bodies are answered with 413 before they are read.
+router.put('/artifacts/:sha256', express.raw({ type: 'image/*', limit: config.artifactMaxBytes }), handle(async (req, res) => {
+  const { sha256 } = req.params;
+  if (!Buffer.isBuffer(req.body) || req.body.length === 0) {
+    return res.status(400).json({ message: 'binary image body is required' });
+  }
+  const digest = crypto.createHash('sha256').update(req.body).digest('hex');
+  if (digest !== sha256.toLowerCase()) {
+    return res.status(400).json({ message: 'sha256 does not match body' });
+  }
+  await executionStore.putArtifact(digest, req.body, req.headers['content-type']);
+  return res.status(201).json({ sha256: digest });
+}));
+
+// Download an artifact by hash; run and test case reads only carry the hash of each step's screenshot
+router.get('/artifacts/:sha256', handle(async (req, res) => {
+  const artifact = await executionStore.getArtifact(req.params.sha256.toLowerCase());
+  if (!artifact) return res.status(404).json({ message: 'Artifact not found' });
+  res.set('Content-Type', artifact.contentType);
+  res.set('Cache-Control', 'public, max-age=31536000, immutable');
+  return res.send(artifact.data);
+}));
 
 // List all execution runs
-router.get('/runs', async (_req, res) => {
+router.get('/runs', handle(async (_req, res) => {
   const runs = await executionStore.listRuns();
   return res.json(runs);
-});
+}));
 
 // Get a specific run with all test cases
-router.get('/runs/:runId', async (req, res) => {
+router.get('/runs/:runId', handle(async (req, res) => {
   const run = await executionStore.getRun(req.params.runId);
   if (!run) return res.status(404).json({ message: 'Run not found' });
   return res.json(run);
-});
+}));
+
+// Distinct failures of a run by fingerprint, with occurrence counts and affected test cases
+router.get('/runs/:runId/failures', handle(async (req, res) => {
+  const failures = await executionStore.listFailures(req.params.runId);
+  if (!failures) return res.status(404).json({ message: 'Run not found' });
+  return res.json(failures);
+}));
 
 // Get a specific test case with steps
-router.get('/runs/:runId/test-cases/:testCaseId', async (req, res) => {
+router.get('/runs/:runId/test-cases/:testCaseId', handle(async (req, res) => {
   const testCase = await executionStore.getTestCase(req.params.testCaseId);
   if (!testCase) return res.status(404).json({ message: 'Test case not found' });
   return res.json(testCase);
-});
+}));
 
 export default router;
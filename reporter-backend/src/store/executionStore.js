@@ -1,9 +1,17 @@
 import { v4 as uuidv4 } from 'uuid';
-import { db } from '../firebase.js';
+import { arrayUnion, db, increment } from '../firebase.js';
 
 const RUNS_COLLECTION = 'executionRuns';
 const TEST_CASES_COLLECTION = 'testCases';
 const STEPS_COLLECTION = 'steps';
+const ARTIFACTS_COLLECTION = 'artifacts';
+const ARTIFACT_CHUNKS_COLLECTION = 'artifactChunks';
+const FAILURES_COLLECTION = 'failures';
+// Firestore rejects batches above 500 writes. An event costs at most four (an error's step, test
+// case, failure and finish) plus one run update per batch, so this many always fit in one commit.
+export const MAX_BATCH_EVENTS = 100;
+// Firestore documents are capped at 1 MiB, so artifacts are stored as raw byte chunks below that
+const ARTIFACT_CHUNK_BYTES = 768 * 1024;
 
 function generateRunId() {
   const chars = 'ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789';
@@ -23,6 +31,58 @@ function generateShortId(prefix = '') {
   return prefix ? `${prefix}${id}` : id;
 }
 
+// Firestore rejects an update of a missing document with gRPC NOT_FOUND (code 5)
+// A run's counters: the client's latest summary once it has sent one, else what the per-event
+// increments added up to. Events keep incrementing either way, so neither source double counts.
+function withCounters(runData) {
+  const total = runData?.summary?.total;
+  if (!total) return runData;
+  return {
+    ...runData,
+    totalTests: Number(total.started) || 0,
+    passedTests: Number(total.passed) || 0,
+    failedTests: Number(total.failed) || 0,
+    skippedTests: Number(total.skipped) || 0,
+  };
+}
+
+function isNotFound(error) {
+  return error?.code === 5;
+}
+
+// One document per distinct failure in a run; the client sends the trace only with the first
+function failureDocId(runDocId, fingerprint) {
+  return `${runDocId}_${fingerprint}`;
+}
+
+function failureUpdate(runDocId, testCaseId, { fingerprint, errorHeadline, error }, now) {
+  return {
+    runId: runDocId,
+    fingerprint,
+    headline: errorHeadline || null,
+    ...(error ? { trace: error } : {}),
+    occurrences: increment(1),
+    testCaseIds: arrayUnion(testCaseId),
+    lastSeenAt: now,
+  };
+}
+
+// Failures that referenced an earlier trace get it back on read, falling back to their headline.
+// `traces` caches lookups across calls so a run reads each failure document once.
+async function hydrateFailures(runDocId, items, traces = new Map()) {
+  const pending = items.filter((i) => !i.error && i.fingerprint);
+  if (pending.length === 0) return items;
+  pending.forEach(({ fingerprint }) => {
+    if (!traces.has(fingerprint)) {
+      traces.set(fingerprint, db.collection(FAILURES_COLLECTION).doc(failureDocId(runDocId, fingerprint)).get()
+        .then((doc) => (doc.exists ? doc.data().trace || null : null)));
+    }
+  });
+  return Promise.all(items.map(async (i) => (!i.error && i.fingerprint
+    ? { ...i, error: (await traces.get(i.fingerprint)) || i.errorHeadline || null }
+    : i)));
+}
+
 class ExecutionStore {
   async resolveRunDocId(runIdentifier) {
     const byDocId = await db.collection(RUNS_COLLECTION).doc(runIdentifier).get();
@@ -43,6 +103,14 @@ class ExecutionStore {
     return byRunId.docs[0].id;
   }
 
+  // Trusted callers send the run's document id (learned from the start response), so the
+  // lookups are skipped. Their writes go out in one batch that also updates the run or test case,
+  // which Firestore rejects as a whole for a missing document, or (for steps) after reading the
+  // test case and checking it belongs to that run; callers turn either into a 404.
+  async runDocIdFor(runIdentifier, trusted) {
+    return trusted ? runIdentifier : this.resolveRunDocId(runIdentifier);
+  }
+
   // Start a new execution run (batch of tests)
   async startRun({ runId, browser, tags, suiteName, environment }) {
     try {
@@ -72,13 +140,11 @@ class ExecutionStore {
   }
 
   // Start a test case within an execution run
-  async startTestCase(runIdentifier, { testCaseId, testName, tags }) {
+  async startTestCase(runIdentifier, { testCaseId, testName, tags }, { trusted = false } = {}) {
     try {
-      const resolvedRunId = await this.resolveRunDocId(runIdentifier);
+      const resolvedRunId = await this.runDocIdFor(runIdentifier, trusted);
       if (!resolvedRunId) return null;
 
-      const run = await db.collection(RUNS_COLLECTION).doc(resolvedRunId).get();
-      if (!run.exists) return null;
       const normalizedTags = Array.isArray(tags) && tags.length > 0 ? tags : ['default'];
 
       // Use provided testCaseId or generate short SaaS-style ID
@@ -96,31 +162,36 @@ class ExecutionStore {
         createdAt: new Date(),
       };
       
-      await db.collection(TEST_CASES_COLLECTION).doc(testCaseId_).set(testCase);
-      
+      // One commit, so an unknown run leaves no test case behind
+      const batch = db.batch();
+      batch.set(db.collection(TEST_CASES_COLLECTION).doc(testCaseId_), testCase);
       // Update run total tests count
-      const runData = run.data();
-      const mergedTags = Array.from(new Set([...(runData.tags || []), ...normalizedTags]));
-      await db.collection(RUNS_COLLECTION).doc(resolvedRunId).update({
-        totalTests: (runData.totalTests || 0) + 1,
-        tags: mergedTags,
+      batch.update(db.collection(RUNS_COLLECTION).doc(resolvedRunId), {
+        totalTests: increment(1),
+        tags: arrayUnion(...normalizedTags),
       });
+      await batch.commit();
       
       return testCase;
     } catch (error) {
+      if (trusted && isNotFound(error)) return null;
       console.error('Error starting test case:', error);
       throw error;
     }
   }
 
   // Append a step to a test case
-  async appendStep(runIdentifier, testCaseId, { stepName, status, screenshot, error }) {
+  async appendStep(runIdentifier, testCaseId, {
+    stepName, status, screenshot, screenshotHash, error, fingerprint, errorHeadline,
+  }, { trusted = false } = {}) {
     try {
-      const resolvedRunId = await this.resolveRunDocId(runIdentifier);
+      const resolvedRunId = await this.runDocIdFor(runIdentifier, trusted);
       if (!resolvedRunId) return null;
 
+      // Trusted steps skip resolving the run, so the test case must also belong to the run they name
       const testCaseDoc = await db.collection(TEST_CASES_COLLECTION).doc(testCaseId).get();
       if (!testCaseDoc.exists) return null;
+      if (trusted && testCaseDoc.data().runId !== resolvedRunId) return null;
 // Generate short SaaS-style ID for steps
       const stepId = generateShortId('STEP');
       // const stepId = uuidv4();
@@ -131,75 +202,265 @@ class ExecutionStore {
         stepName,
         status,
         screenshot: screenshot || null,
+        screenshotHash: screenshotHash || null,
         error: error || null,
+        fingerprint: fingerprint || null,
+        errorHeadline: errorHeadline || null,
         timestamp: new Date(),
         createdAt: new Date(),
       };
       
-      await db.collection(STEPS_COLLECTION).doc(stepId).set(step);
+      const batch = db.batch();
+      batch.set(db.collection(STEPS_COLLECTION).doc(stepId), step);
+      if (fingerprint) {
+        batch.set(
+          db.collection(FAILURES_COLLECTION).doc(failureDocId(resolvedRunId, fingerprint)),
+          failureUpdate(resolvedRunId, testCaseId, { fingerprint, errorHeadline, error }, new Date()),
+          { merge: true },
+        );
+      }
       
       // Update test case status if failed
-      const testCaseData = testCaseDoc.data();
       if (status === 'FAIL') {
-        await db.collection(TEST_CASES_COLLECTION).doc(testCaseId).update({
+        batch.update(db.collection(TEST_CASES_COLLECTION).doc(testCaseId), {
           status: 'FAIL',
-          error: error || testCaseData.error,
+          error: error || testCaseDoc.data().error || null,
+          ...(fingerprint ? { fingerprint, errorHeadline: errorHeadline || null } : {}),
         });
       }
+      await batch.commit();
       
       return step;
     } catch (error) {
+      if (trusted && isNotFound(error)) return null;
       console.error('Error appending step:', error);
       throw error;
     }
   }
 
   // Finish a test case
-  async finishTestCase(runIdentifier, testCaseId, status) {
+  async finishTestCase(runIdentifier, testCaseId, status, { trusted = false } = {}) {
     try {
-      const resolvedRunId = await this.resolveRunDocId(runIdentifier);
+      const resolvedRunId = await this.runDocIdFor(runIdentifier, trusted);
       if (!resolvedRunId) return null;
 
-      const testCaseDoc = await db.collection(TEST_CASES_COLLECTION).doc(testCaseId).get();
-      if (!testCaseDoc.exists) return null;
+      const testCaseDoc = trusted ? null : await db.collection(TEST_CASES_COLLECTION).doc(testCaseId).get();
+      if (testCaseDoc && !testCaseDoc.exists) return null;
 
       const finalStatus = status || 'PASS';
-      await db.collection(TEST_CASES_COLLECTION).doc(testCaseId).update({
+      const finishedAt = new Date();
+      const batch = db.batch();
+      batch.update(db.collection(TEST_CASES_COLLECTION).doc(testCaseId), {
         status: finalStatus,
-        finishedAt: new Date(),
+        finishedAt,
       });
 
       // Update run stats
-      const runDoc = await db.collection(RUNS_COLLECTION).doc(resolvedRunId).get();
-      const runData = runDoc.data();
-      
-      const updateData = {};
       if (finalStatus === 'PASS') {
-        updateData.passedTests = (runData.passedTests || 0) + 1;
+        batch.update(db.collection(RUNS_COLLECTION).doc(resolvedRunId), { passedTests: increment(1) });
       } else if (finalStatus === 'FAIL') {
-        updateData.failedTests = (runData.failedTests || 0) + 1;
+        batch.update(db.collection(RUNS_COLLECTION).doc(resolvedRunId), { failedTests: increment(1) });
       }
+      await batch.commit();
 
-      await db.collection(RUNS_COLLECTION).doc(resolvedRunId).update(updateData);
-      
-      return testCaseDoc.data();
+      return testCaseDoc
+        ? testCaseDoc.data()
+        : { id: testCaseId, runId: resolvedRunId, status: finalStatus, finishedAt };
     } catch (error) {
+      if (trusted && isNotFound(error)) return null;
       console.error('Error finishing test case:', error);
       throw error;
     }
   }
 
+  // Apply a client-side batch of up to MAX_BATCH_EVENTS test case events in one atomic commit,
+  // so a failure applies none of them and the client's retry cannot apply any twice
+  async applyEventBatch(runIdentifier, events, { trusted = false } = {}) {
+    try {
+      if (events.length > MAX_BATCH_EVENTS) {
+        throw new Error(`At most ${MAX_BATCH_EVENTS} events can be applied at once, got ${events.length}`);
+      }
+      const resolvedRunId = await this.runDocIdFor(runIdentifier, trusted);
+      if (!resolvedRunId) return null;
+
+      const runRef = db.collection(RUNS_COLLECTION).doc(resolvedRunId);
+      const batch = db.batch();
+      const write = (fn) => fn(batch);
+
+      const counters = { totalTests: 0, passedTests: 0, failedTests: 0 };
+      const tags = new Set();
+      const now = new Date();
+
+      const finish = (testCaseId, status) => {
+        write((b) => b.set(db.collection(TEST_CASES_COLLECTION).doc(testCaseId), {
+          status,
+          finishedAt: now,
+        }, { merge: true }));
+        if (status === 'PASS') counters.passedTests += 1;
+        else if (status === 'FAIL') counters.failedTests += 1;
+      };
+
+      const step = (testCaseId, {
+        stepName, status, screenshot, screenshotHash, error, fingerprint, errorHeadline,
+      }) => {
+        const stepId = generateShortId('STEP');
+        write((b) => b.set(db.collection(STEPS_COLLECTION).doc(stepId), {
+          id: stepId,
+          testCaseId,
+          runId: resolvedRunId,
+          stepName,
+          status,
+          screenshot: screenshot || null,
+          screenshotHash: screenshotHash || null,
+          error: error || null,
+          fingerprint: fingerprint || null,
+          errorHeadline: errorHeadline || null,
+          timestamp: now,
+          createdAt: new Date(),
+        }));
+        if (status === 'FAIL') {
+          write((b) => b.set(db.collection(TEST_CASES_COLLECTION).doc(testCaseId), {
+            status: 'FAIL',
+            ...(error ? { error } : {}),
+            ...(fingerprint ? { fingerprint, errorHeadline: errorHeadline || null } : {}),
+          }, { merge: true }));
+        }
+        if (fingerprint) {
+          write((b) => b.set(
+            db.collection(FAILURES_COLLECTION).doc(failureDocId(resolvedRunId, fingerprint)),
+            failureUpdate(resolvedRunId, testCaseId, { fingerprint, errorHeadline, error }, now),
+            { merge: true },
+          ));
+        }
+      };
+
+      for (const event of events) {
+        const { type, testCaseId, data = {} } = event || {};
+        if (!testCaseId) continue;
+        if (type === 'testCaseStart') {
+          const normalizedTags = Array.isArray(data.tags) && data.tags.length > 0 ? data.tags : ['default'];
+          normalizedTags.forEach((tag) => tags.add(tag));
+          write((b) => b.set(db.collection(TEST_CASES_COLLECTION).doc(testCaseId), {
+            id: testCaseId,
+            runId: resolvedRunId,
+            name: data.testName,
+            tags: normalizedTags,
+            status: 'RUNNING',
+            startedAt: now,
+            finishedAt: null,
+            steps: [],
+            error: null,
+            createdAt: now,
+          }));
+          counters.totalTests += 1;
+        } else if (type === 'step') {
+          step(testCaseId, data);
+        } else if (type === 'error') {
+          step(testCaseId, { ...data, stepName: data.stepName || 'Error', status: 'FAIL' });
+          finish(testCaseId, 'FAIL');
+        } else if (type === 'testCaseFinish') {
+          finish(testCaseId, data.status || 'PASS');
+        }
+      }
+
+      // One atomic run update per batch instead of a read-modify-write per event
+      write((b) => b.update(runRef, {
+        totalTests: increment(counters.totalTests),
+        passedTests: increment(counters.passedTests),
+        failedTests: increment(counters.failedTests),
+        ...(tags.size > 0 ? { tags: arrayUnion(...tags) } : {}),
+      }));
+
+      await batch.commit();
+      return { accepted: events.length };
+    } catch (error) {
+      if (trusted && isNotFound(error)) return null;
+      console.error('Error applying event batch:', error);
+      throw error;
+    }
+  }
+
+  // Store the client's summary snapshot. The client counts every test itself, so once a run has
+  // a summary its totals are reported instead of the per-event increments (see withCounters),
+  // which keep running untouched underneath; an older snapshot is ignored. The sequence check
+  // and the write are one transaction, so concurrent snapshots cannot apply out of order.
+  async applySummary(runIdentifier, summary, { trusted = false } = {}) {
+    try {
+      const resolvedRunId = await this.runDocIdFor(runIdentifier, trusted);
+      if (!resolvedRunId) return null;
+
+      const runRef = db.collection(RUNS_COLLECTION).doc(resolvedRunId);
+      return await db.runTransaction(async (transaction) => {
+        const runDoc = await transaction.get(runRef);
+        if (!runDoc.exists) return null;
+        const current = runDoc.data()?.summary;
+        if (current && Number(current.sequence) >= Number(summary.sequence)) {
+          return { applied: false, sequence: current.sequence };
+        }
+        transaction.update(runRef, { summary: { ...summary, receivedAt: new Date() } });
+        return { applied: true, sequence: summary.sequence };
+      });
+    } catch (error) {
+      if (trusted && isNotFound(error)) return null;
+      console.error('Error applying run summary:', error);
+      throw error;
+    }
+  }
+
+  // Store an artifact under its content hash. The bytes go into chunk documents first and the
+  // head document last, so an artifact is only visible once it is complete.
+  async putArtifact(sha256, buffer, contentType) {
+    try {
+      const head = db.collection(ARTIFACTS_COLLECTION).doc(sha256);
+      if ((await head.get()).exists) return sha256;
+
+      const chunks = Math.ceil(buffer.length / ARTIFACT_CHUNK_BYTES);
+      await Promise.all(Array.from({ length: chunks }, (_, i) => db.collection(ARTIFACT_CHUNKS_COLLECTION)
+        .doc(`${sha256}_${i}`)
+        .set({ data: buffer.subarray(i * ARTIFACT_CHUNK_BYTES, (i + 1) * ARTIFACT_CHUNK_BYTES) })));
+      await head.set({
+        id: sha256,
+        contentType: contentType || 'image/png',
+        size: buffer.length,
+        chunks,
+        createdAt: new Date(),
+      });
+      return sha256;
+    } catch (error) {
+      console.error('Error storing artifact:', error);
+      throw error;
+    }
+  }
+
+  // Get an artifact by content hash, with its bytes reassembled into `data`
+  async getArtifact(sha256) {
+    try {
+      const doc = await db.collection(ARTIFACTS_COLLECTION).doc(sha256).get();
+      if (!doc.exists) return null;
+      const artifact = doc.data();
+      // Artifacts stored before chunking kept their bytes inline as base64
+      if (typeof artifact.data === 'string') return { ...artifact, data: Buffer.from(artifact.data, 'base64') };
+
+      const chunks = await Promise.all(Array.from({ length: artifact.chunks || 0 }, (_, i) => db
+        .collection(ARTIFACT_CHUNKS_COLLECTION).doc(`${sha256}_${i}`).get()));
+      if (chunks.some((chunk) => !chunk.exists)) return null;
+      return { ...artifact, data: Buffer.concat(chunks.map((chunk) => Buffer.from(chunk.data().data))) };
+    } catch (error) {
+      console.error('Error getting artifact:', error);
+      throw error;
+    }
+  }
+
   // Finish the execution run
-  async finishRun(runIdentifier, status) {
+  async finishRun(runIdentifier, status, { trusted = false } = {}) {
     try {
-      const resolvedRunId = await this.resolveRunDocId(runIdentifier);
+      const resolvedRunId = await this.runDocIdFor(runIdentifier, trusted);
       if (!resolvedRunId) return null;
 
       const runDoc = await db.collection(RUNS_COLLECTION).doc(resolvedRunId).get();
       if (!runDoc.exists) return null;
 
-      const runData = runDoc.data();
-      const passedTests = Number(runData.passedTests || 0);
+      const runData = withCounters(runDoc.data());
       const failedTests = Number(runData.failedTests || 0);
       const finalStatus = status || (failedTests > 0 ? 'FAIL' : 'PASS');
       await db.collection(RUNS_COLLECTION).doc(resolvedRunId).update({
@@ -207,7 +468,7 @@ class ExecutionStore {
         finishedAt: new Date(),
       });
 
-      return runDoc.data();
+      return runData;
     } catch (error) {
       console.error('Error finishing run:', error);
       throw error;
@@ -228,6 +489,7 @@ class ExecutionStore {
         .where('runId', '==', resolvedRunId)
         .get();
 
+      const traces = new Map();
       const testCases = await Promise.all(
         testCasesSnapshot.docs.map(async (testCaseDoc) => {
           const testCaseData = testCaseDoc.data();
@@ -250,17 +512,18 @@ class ExecutionStore {
           });
           
           // Convert test case timestamps
+          const [hydratedTestCase] = await hydrateFailures(resolvedRunId, [testCaseData], traces);
           return {
-            ...testCaseData,
+            ...hydratedTestCase,
             startedAt: testCaseData.startedAt?.toDate?.()?.toISOString() || testCaseData.startedAt || null,
             finishedAt: testCaseData.finishedAt?.toDate?.()?.toISOString() || testCaseData.finishedAt || null,
             createdAt: testCaseData.createdAt?.toDate?.()?.toISOString() || testCaseData.createdAt || null,
-            steps,
+            steps: await hydrateFailures(resolvedRunId, steps, traces),
           };
         })
       );
 
-      const runData = runDoc.data();
+      const runData = withCounters(runDoc.data());
       return {
         ...runData,
         startedAt: runData.startedAt?.toDate?.()?.toISOString() || runData.startedAt || null,
@@ -298,12 +561,14 @@ class ExecutionStore {
       });
       
       const testCaseData = testCaseDoc.data();
+      const traces = new Map();
+      const [hydratedTestCase] = await hydrateFailures(testCaseData.runId, [testCaseData], traces);
       return {
-        ...testCaseData,
+        ...hydratedTestCase,
         startedAt: testCaseData.startedAt?.toDate?.()?.toISOString() || testCaseData.startedAt || null,
         finishedAt: testCaseData.finishedAt?.toDate?.()?.toISOString() || testCaseData.finishedAt || null,
         createdAt: testCaseData.createdAt?.toDate?.()?.toISOString() || testCaseData.createdAt || null,
-        steps,
+        steps: await hydrateFailures(testCaseData.runId, steps, traces),
       };
     } catch (error) {
       console.error('Error getting test case:', error);
@@ -311,6 +576,29 @@ class ExecutionStore {
     }
   }
 
+  // Distinct failures in a run, most frequent first
+  async listFailures(runIdentifier) {
+    try {
+      const resolvedRunId = await this.resolveRunDocId(runIdentifier);
+      if (!resolvedRunId) return null;
+
+      const snapshot = await db.collection(FAILURES_COLLECTION)
+        .where('runId', '==', resolvedRunId)
+        .get();
+
+      return snapshot.docs.map((doc) => {
+        const data = doc.data();
+        return {
+          ...data,
+          lastSeenAt: data.lastSeenAt?.toDate?.()?.toISOString() || data.lastSeenAt || null,
+        };
+      }).sort((a, b) => (b.occurrences || 0) - (a.occurrences || 0));
+    } catch (error) {
+      console.error('Error listing failures:', error);
+      throw error;
+    }
+  }
+
   // List all runs
   async listRuns(limit = 50) {
     try {
@@ -321,7 +609,7 @@ class ExecutionStore {
 
       // Convert Firestore Timestamps to ISO strings
       return runsSnapshot.docs.map(doc => {
-        const data = doc.data();
+        const data = withCounters(doc.data());
         return {
           ...data,
           startedAt: data.startedAt?.toDate?.()?.toISOString() || data.startedAt || null,
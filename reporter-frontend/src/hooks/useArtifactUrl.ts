@@ -0,0 +1,41 @@
+/**
+ * Custom hook for screenshots stored as content-addressed artifacts
+ * Steps only carry the image's SHA-256; the bytes are loaded on demand from the artifact endpoint
+ */
+
+import { useEffect, useState } from 'react';
+import { api } from '../api/client.js';
+
+/**
+ * useArtifactUrl - Object URL for an artifact
+ *
+ * An <img> cannot send the bearer token, so the image is fetched with the API client
+ * and shown through an object URL, which is revoked when the hash changes or on unmount.
+ * Steps recorded before artifacts existed carry the image inline; that is returned as is.
+ *
+ * @param hash - The step's screenshotHash
+ * @param inline - The step's inline base64 screenshot, if any
+ */
+export function useArtifactUrl(hash?: string | null, inline?: string | null) {
+  const [url, setUrl] = useState<string | null>(null);
+
+  useEffect(() => {
+    setUrl(null);
+    if (inline || !hash) return undefined;
+    let objectUrl: string | null = null;
+    let cancelled = false;
+    api.get(`/api/executions/artifacts/${hash}`, { responseType: 'blob' })
+      .then((res) => {
+        if (cancelled) return;
+        objectUrl = URL.createObjectURL(res.data);
+        setUrl(objectUrl);
+      })
+      .catch((err) => console.warn('[useArtifactUrl] Failed to load artifact', hash, err));
+    return () => {
+      cancelled = true;
+      if (objectUrl) URL.revokeObjectURL(objectUrl);
+    };
+  }, [hash, inline]);
+
+  return inline || url;
+}
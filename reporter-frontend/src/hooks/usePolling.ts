@@ -68,7 +68,7 @@ export function usePolling(
         intervalRef.current = null;
       }
     };
-  }, [interval]); // Only depend on interval, not refetch (refetch is called via its closure)
+  }, [interval, enabled]); // Not refetch (refetch is called via its closure)
 
   return {
     stop: () => {
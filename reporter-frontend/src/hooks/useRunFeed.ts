@@ -0,0 +1,109 @@
+/**
+ * Custom hook for a run's live event feed
+ * Reads the backend's Server-Sent Events stream and hands each batch of applied events
+ * to the caller, reconnecting with backoff while enabled
+ */
+
+import { useEffect, useRef, useState } from 'react';
+import { api } from '../api/client.js';
+
+export interface RunFeedEvent {
+  type: 'testCaseStart' | 'step' | 'error' | 'testCaseFinish';
+  testCaseId: string;
+  data: Record<string, any>;
+}
+
+interface UseRunFeedOptions {
+  enabled?: boolean;
+  onEvents: (events: RunFeedEvent[]) => void;
+  onRunFinished?: () => void;
+}
+
+const MAX_RETRY_MS = 30000;
+
+/**
+ * useRunFeed - Live run progress
+ *
+ * EventSource cannot send the bearer token, so the stream is read with fetch.
+ * `connected` lets the caller stop polling while deltas are arriving.
+ *
+ * @param runId - Run to follow
+ * @param options - Feed configuration and event handlers
+ */
+export function useRunFeed(runId: string | undefined, options: UseRunFeedOptions) {
+  const { enabled = true } = options;
+  const [connected, setConnected] = useState(false);
+  // Handlers change every render; keep the connection independent of them
+  const handlersRef = useRef(options);
+  handlersRef.current = options;
+
+  useEffect(() => {
+    if (!runId || !enabled) return undefined;
+    const controller = new AbortController();
+    let retryMs = 1000;
+    let retryTimer: ReturnType<typeof setTimeout> | null = null;
+
+    const dispatch = (frame: string) => {
+      let name = 'message';
+      const data: string[] = [];
+      frame.split('\n').forEach((line) => {
+        if (line.startsWith('event:')) name = line.slice(6).trim();
+        else if (line.startsWith('data:')) data.push(line.slice(5).trimStart());
+      });
+      // Comment-only frames are heartbeats
+      if (data.length === 0) return;
+      const payload = JSON.parse(data.join('\n'));
+      if (name === 'events') handlersRef.current.onEvents(payload);
+      else if (name === 'runFinished') handlersRef.current.onRunFinished?.();
+    };
+
+    const connect = async () => {
+      try {
+        const token = localStorage.getItem('reporter_token');
+        const res = await fetch(`${api.defaults.baseURL}/api/executions/runs/${runId}/live`, {
+          headers: token ? { Authorization: `Bearer ${token}` } : {},
+          signal: controller.signal,
+        });
+        if (res.status === 401 || res.status === 404) {
+          // Not retried; the caller keeps polling
+          return;
+        }
+        if (!res.ok || !res.body) throw new Error(`Live feed unavailable (${res.status})`);
+        setConnected(true);
+        retryMs = 1000;
+
+        const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        for (;;) {
+          const { value, done } = await reader.read();
+          if (done) break;
+          buffer += value;
+          let end = buffer.indexOf('\n\n');
+          while (end >= 0) {
+            dispatch(buffer.slice(0, end));
+            buffer = buffer.slice(end + 2);
+            end = buffer.indexOf('\n\n');
+          }
+        }
+      } catch (error) {
+        if (controller.signal.aborted) return;
+        console.error('Live feed error:', error);
+      }
+      if (controller.signal.aborted) return;
+      setConnected(false);
+      retryTimer = setTimeout(connect, retryMs);
+      retryMs = Math.min(retryMs * 2, MAX_RETRY_MS);
+    };
+
+    connect();
+
+    // Cleanup
+    return () => {
+      controller.abort();
+      if (retryTimer) clearTimeout(retryTimer);
+      setConnected(false);
+    };
+  }, [runId, enabled]);
+
+  return { connected };
+}
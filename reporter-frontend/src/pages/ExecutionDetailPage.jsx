@@ -32,6 +32,59 @@ import * as XLSX from 'xlsx';
 import { jsPDF } from 'jspdf';
 import { formatDuration, formatDate, calculateDurationMs } from '../utils/formatting';
 import { usePolling } from '../hooks/usePolling';
+import { useRunFeed } from '../hooks/useRunFeed';
+import { useArtifactUrl } from '../hooks/useArtifactUrl';
+
+// Merge live feed events into the fetched run
+function applyLiveEvents(run, events) {
+  const now = new Date().toISOString();
+  const testCases = [...(run.testCases || [])];
+  const indexOf = (id) => testCases.findIndex((tc) => tc.id === id);
+  const update = (id, fn) => {
+    const index = indexOf(id);
+    if (index >= 0) testCases[index] = fn(testCases[index]);
+  };
+  const addStep = (id, data, status) => update(id, (tc) => ({
+    ...tc,
+    steps: [...(tc.steps || []), {
+      id: `live-${id}-${(tc.steps || []).length}`,
+      testCaseId: id,
+      stepName: data.stepName || 'Error',
+      status,
+      // A repeated failure carries only its headline; the full trace arrives with the next fetch
+      error: data.error || data.errorHeadline || null,
+      // Only the hash is relayed; the image is loaded from the artifact endpoint when the step is shown
+      screenshot: null,
+      screenshotHash: data.screenshotHash || null,
+      timestamp: now,
+      createdAt: now,
+    }],
+  }));
+
+  events.forEach(({ type, testCaseId, data = {} }) => {
+    if (type === 'testCaseStart' && indexOf(testCaseId) < 0) {
+      testCases.push({
+        id: testCaseId,
+        runId: run.id,
+        name: data.testName,
+        tags: data.tags || ['default'],
+        status: 'RUNNING',
+        startedAt: now,
+        finishedAt: null,
+        error: null,
+        steps: [],
+      });
+    } else if (type === 'step') {
+      addStep(testCaseId, data, data.status);
+    } else if (type === 'error') {
+      addStep(testCaseId, data, 'FAIL');
+      update(testCaseId, (tc) => ({ ...tc, status: 'FAIL', error: data.error || data.errorHeadline || tc.error, finishedAt: now }));
+    } else if (type === 'testCaseFinish') {
+      update(testCaseId, (tc) => ({ ...tc, status: data.status || 'PASS', finishedAt: now }));
+    }
+  });
+  return { ...run, testCases };
+}
 
 export default function ExecutionDetailPage() {
   const { runId } = useParams();
@@ -82,13 +135,24 @@ export default function ExecutionDetailPage() {
     fetchRunDetails();
   }, [runId]);
 
-  // Polling - uses custom hook to prevent flickering
+  // Live feed - merges deltas instead of refetching the whole run
+  const { connected } = useRunFeed(runId, {
+    enabled: !!run && run.status === 'RUNNING',
+    onEvents: (events) => {
+      setRun((current) => (current ? applyLiveEvents(current, events) : current));
+    },
+    onRunFinished: fetchRunDetails,
+  });
+
+  // Polling - fallback while the live feed is not connected
   // Updates only if data actually changed
   usePolling(fetchRunDetails, {
-    enabled: !!run && run.status === 'RUNNING', // Only poll while running
+    enabled: !!run && run.status === 'RUNNING' && !connected, // Only poll while running
     interval: 5000, // 5 seconds for detail page
   });
 
+  const screenshotUrl = useArtifactUrl(selectedStep?.screenshotHash, selectedStep?.screenshot);
+
   const filteredTestCases = useMemo(() => {
     if (!run) return [];
     return filterStatus
@@ -452,7 +516,7 @@ export default function ExecutionDetailPage() {
                     <StepDetailPanel
                       stepName={selectedStep.stepName}
                       stepStatus={selectedStep.status}
-                      screenshot={selectedStep.screenshot}
+                      screenshot={screenshotUrl}
                       error={selectedStep.error}
                     />
                   ) : (
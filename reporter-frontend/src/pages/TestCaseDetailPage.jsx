@@ -4,6 +4,28 @@ import { api } from '../api/client.js';
 import { Paper, Typography, Stack, Chip, Divider, Box, CircularProgress, Button, Grid, Card, CardContent, alpha } from '@mui/material';
 import { StatusChip } from '../ui/StatusChip.jsx';
 import ArrowBackIcon from '@mui/icons-material/ArrowBack';
+import { useArtifactUrl } from '../hooks/useArtifactUrl';
+
+function StepScreenshot({ step }) {
+  const src = useArtifactUrl(step.screenshotHash, step.screenshot && `data:image/png;base64,${step.screenshot}`);
+  if (!src) return null;
+  return (
+    <Box
+      component="img"
+      src={src}
+      alt={`screenshot-${step.id}`}
+      sx={{ 
+        width: '100%', 
+        borderRadius: 3, 
+        border: '1px solid',
+        borderColor: 'divider',
+        maxHeight: 300, 
+        objectFit: 'contain',
+        bgcolor: 'white',
+      }}
+    />
+  );
+}
 
 export default function TestCaseDetailPage() {
   const { runId, testCaseId } = useParams();
@@ -169,7 +191,7 @@ export default function TestCaseDetailPage() {
               >
                 <CardContent sx={{ p: 2.5 }}>
                   <Grid container spacing={2} alignItems="flex-start">
-                    <Grid item xs={12} md={step.screenshot ? 7 : 12}>
+                    <Grid item xs={12} md={step.screenshot || step.screenshotHash ? 7 : 12}>
                       <Stack direction="row" spacing={1} alignItems="center" sx={{ mb: 1.5 }}>
                         <Chip 
                           label={`Step ${idx + 1}`} 
@@ -222,22 +244,9 @@ export default function TestCaseDetailPage() {
                         </Typography>
                       )}
                     </Grid>
-                    {step.screenshot && (
+                    {(step.screenshot || step.screenshotHash) && (
                       <Grid item xs={12} md={5}>
-                        <Box
-                          component="img"
-                          src={`data:image/png;base64,${step.screenshot}`}
-                          alt={`screenshot-${step.id}`}
-                          sx={{ 
-                            width: '100%', 
-                            borderRadius: 3, 
-                            border: '1px solid',
-                            borderColor: 'divider',
-                            maxHeight: 300, 
-                            objectFit: 'contain',
-                            bgcolor: 'white',
-                          }}
-                        />
+                        <StepScreenshot step={step} />
                       </Grid>
                     )}
                   </Grid>
@@ -0,0 +1,93 @@
+package com.example.reporting;
+
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixtures shared by the reporting benchmarks.
+ */
+final class BenchmarkSupport {
+    private static PrintStream originalOut;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Sends {@code System.out} to a null stream. Log lines are still formatted, so their
+     * cost stays in the measurement, but the JMH console stays readable.
+     */
+    static synchronized void muteConsole() {
+        if (originalOut == null) {
+            originalOut = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+    static synchronized void restoreConsole() {
+        if (originalOut != null) {
+            System.setOut(originalOut);
+            originalOut = null;
+        }
+    }
+
+    /**
+     * A 1280x720 PNG with enough structure that it compresses like a real page capture.
+     */
+    static byte[] screenshotPng() {
+        BufferedImage image = new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 1280, 720);
+        g.setColor(new Color(0x1f2937));
+        g.fillRect(0, 0, 1280, 64);
+        g.setColor(Color.DARK_GRAY);
+        for (int y = 100; y < 700; y += 24) {
+            g.drawString("Lorem ipsum dolor sit amet, consectetur adipiscing elit " + y, 40, y);
+        }
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "png", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A minimal {@link ITestResult} carrying what {@link ReporterListener} reads.
+     */
+    static ITestResult testResult(String methodName, String[] groups, Throwable throwable) {
+        ITestNGMethod method = (ITestNGMethod) Proxy.newProxyInstance(BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[]{ITestNGMethod.class}, (proxy, m, args) -> switch (m.getName()) {
+                    case "getMethodName" -> methodName;
+                    case "getGroups" -> groups;
+                    default -> null;
+                });
+        Map<String, Object> attributes = new HashMap<>();
+        return (ITestResult) Proxy.newProxyInstance(BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[]{ITestResult.class}, (proxy, m, args) -> switch (m.getName()) {
+                    case "getMethod" -> method;
+                    case "getName" -> methodName;
+                    case "getThrowable" -> throwable;
+                    case "getAttribute" -> attributes.get((String) args[0]);
+                    case "setAttribute" -> attributes.put((String) args[0], args[1]);
+                    case "removeAttribute" -> attributes.remove((String) args[0]);
+                    case "getStatus" -> throwable == null ? ITestResult.SUCCESS : ITestResult.FAILURE;
+                    default -> null;
+                });
+    }
+}
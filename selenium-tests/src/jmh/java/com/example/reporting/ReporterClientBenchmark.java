@@ -0,0 +1,85 @@
+package com.example.reporting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one {@code logStep} call as a test thread sees it, posting to a stub backend.
+ * <p>
+ * In {@code sync} mode that is serialization plus the loopback round trip; in
+ * {@code async} mode it is serialization plus the enqueue, until the queue fills and
+ * backpressure makes it the sender's throughput.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReporterClientBenchmark {
+    private static final String RUN_ID = "bench-run";
+    private static final String TEST_CASE_ID = "bench-case";
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    private StubReporterServer server;
+    private ReporterClient client;
+    private byte[] screenshotPng;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.muteConsole();
+        server = StubReporterServer.start();
+        client = new ReporterClient(server.baseUrl(), "bench-token", "async".equals(mode));
+        screenshotPng = BenchmarkSupport.screenshotPng();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.flush(Duration.ofSeconds(30));
+        server.close();
+        BenchmarkSupport.restoreConsole();
+    }
+
+    @Benchmark
+    public void logStep() {
+        client.logStep(RUN_ID, TEST_CASE_ID, "Click login", "PASS", null, null);
+    }
+
+    // BaseTest builds a client per test method; this is that client's first request
+    @Benchmark
+    public void newClientLogStep() {
+        new ReporterClient(server.baseUrl(), "bench-token", "async".equals(mode))
+                .logStep(RUN_ID, TEST_CASE_ID, "Click login", "PASS", null, null);
+    }
+
+    // The driver hands back base64 already; encoding here stands in for that conversion
+    @Benchmark
+    public void logStepBase64Screenshot() {
+        client.logStep(RUN_ID, TEST_CASE_ID, "Click login", "PASS",
+                Base64.getEncoder().encodeToString(screenshotPng), null);
+    }
+
+    // After the first upload this is the SHA-256 plus a small step body
+    @Benchmark
+    public void logStepHashedScreenshot() {
+        client.logStepWithImage(RUN_ID, TEST_CASE_ID, "Click login", "PASS", screenshotPng, null);
+    }
+}
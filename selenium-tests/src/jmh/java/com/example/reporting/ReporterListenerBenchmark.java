@@ -0,0 +1,77 @@
+package com.example.reporting;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testng.ITestResult;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-test overhead of {@link ReporterListener}: the start and finish callbacks for a
+ * passing test, and start, error and finish for a failing one. No driver is attached,
+ * so failure screenshots are not part of the measurement.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReporterListenerBenchmark {
+    private static final String[] GROUPS = {"smoke", "login"};
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    private StubReporterServer server;
+    private ReporterClient client;
+    private ReporterListener listener;
+    private AssertionError failure;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.muteConsole();
+        server = StubReporterServer.start();
+        client = new ReporterClient(server.baseUrl(), "bench-token", "async".equals(mode));
+        listener = new ReporterListener();
+        failure = new AssertionError("expected [Dashboard] but found [Login]");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.flush(Duration.ofSeconds(30));
+        server.close();
+        BenchmarkSupport.restoreConsole();
+    }
+
+    private ITestResult start(String methodName, Throwable throwable) {
+        ITestResult result = BenchmarkSupport.testResult(methodName, GROUPS, throwable);
+        result.setAttribute(ReportingContext.ATTRIBUTE, new ReportingContext(
+                "bench-run", "bench-execution", "chrome", null, client, ScreenshotPolicy.fromSpec("always"), null));
+        listener.onTestStart(result);
+        return result;
+    }
+
+    @Benchmark
+    public void passingTest() {
+        listener.onTestSuccess(start("passingTest", null));
+    }
+
+    @Benchmark
+    public void failingTest() {
+        listener.onTestFailure(start("failingTest", failure));
+    }
+}
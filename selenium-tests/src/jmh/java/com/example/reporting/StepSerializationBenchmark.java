@@ -0,0 +1,86 @@
+package com.example.reporting;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization alone, without I/O. The {@code map*} benchmarks keep the former
+ * HashMap-plus-Gson encoding as a baseline for the {@link ReporterPayload} /
+ * {@link JsonBuffer} encoding {@code ReporterClient} uses now.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StepSerializationBenchmark {
+    private final Gson gson = new GsonBuilder().create();
+    private String screenshotBase64;
+
+    @Setup
+    public void setUp() {
+        screenshotBase64 = Base64.getEncoder().encodeToString(BenchmarkSupport.screenshotPng());
+    }
+
+    private static Map<String, Object> stepBody(String screenshot) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("stepName", "Click login");
+        body.put("status", "PASS");
+        if (screenshot != null) body.put("screenshot", screenshot);
+        return body;
+    }
+
+    private static int encode(ReporterPayload payload, boolean redacted) {
+        JsonBuffer out = JsonBuffer.forBody();
+        payload.writeTo(out, redacted);
+        return out.size();
+    }
+
+    @Benchmark
+    public String mapStepBody() {
+        return gson.toJson(stepBody(null));
+    }
+
+    @Benchmark
+    public String mapStepBodyWithScreenshot() {
+        return gson.toJson(stepBody(screenshotBase64));
+    }
+
+    @Benchmark
+    public String mapRedactedLogLine() {
+        Map<String, Object> logBody = new HashMap<>(stepBody(screenshotBase64));
+        logBody.put("screenshot", ReporterPayload.REDACTED_SCREENSHOT);
+        return gson.toJson(logBody);
+    }
+
+    @Benchmark
+    public int stepBody() {
+        return encode(new ReporterPayload.Step("Click login", "PASS", null, null, null), false);
+    }
+
+    @Benchmark
+    public int stepBodyWithScreenshot() {
+        return encode(new ReporterPayload.Step("Click login", "PASS", screenshotBase64, null, null), false);
+    }
+
+    @Benchmark
+    public int redactedLogLine() {
+        return encode(new ReporterPayload.Step("Click login", "PASS", screenshotBase64, null, null), true);
+    }
+}
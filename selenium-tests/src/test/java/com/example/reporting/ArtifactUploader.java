@@ -0,0 +1,172 @@
+package com.example.reporting;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Uploads screenshots as raw bytes to the content-addressed artifact endpoint.
+ * <p>
+ * Each image is keyed by its SHA-256, and a hash is uploaded at most once per
+ * process, so repeated identical frames cost nothing beyond the hash in the step body.
+ * A frame whose hash is still being uploaded shares that upload: a synchronous caller waits
+ * for it, and a failed upload gives the hash up so the next identical frame tries again.
+ * Images above {@code reporter.artifact.maxBytes} (10 MiB, the backend's default
+ * {@code ARTIFACT_MAX_BYTES}) are not uploaded, and the step goes out without a screenshot.
+ * A 401 is retried once with a renewed token from {@link TokenProvider#reauthorize}.
+ */
+final class ArtifactUploader {
+    private static final ReporterLog LOG = ReporterLog.get("Reporter");
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    // hash -> the upload that claimed it, completing with whether the backend stored the image
+    private static final Map<String, CompletableFuture<Boolean>> uploads = new ConcurrentHashMap<>();
+    private static final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private static final long MAX_BYTES = Long.getLong("reporter.artifact.maxBytes", 10 * 1024 * 1024);
+
+    private final ReporterTransport transport;
+    private final String baseUrl;
+    private final String token;
+    private final boolean async;
+
+    ArtifactUploader(ReporterTransport transport, String baseUrl, String token, boolean async) {
+        this.transport = transport;
+        this.baseUrl = baseUrl;
+        this.token = token;
+        this.async = async;
+    }
+
+    /**
+     * Ensures the image is stored server-side and returns its hash, or {@code null} when the
+     * image is too large or a synchronous upload (this frame's or the one it shares) failed,
+     * so no synchronously sent step points at a missing artifact. In async mode the hash is
+     * returned at once and the step may reach the backend before its image does.
+     */
+    String upload(byte[] image) {
+        if (image.length > MAX_BYTES) {
+            LOG.warn("Screenshot of " + image.length + " bytes exceeds reporter.artifact.maxBytes, not uploaded");
+            return null;
+        }
+        String hash = sha256(image);
+        // Claim the hash first so concurrent identical frames upload only once
+        CompletableFuture<Boolean> claim = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = uploads.putIfAbsent(hash, claim);
+        if (existing != null) return share(image, hash, existing);
+        claim.thenAccept(stored -> {
+            if (!stored) uploads.remove(hash, claim);
+        });
+        HttpRequest request = transport.request(URI.create(baseUrl + "/api/executions/artifacts/" + hash))
+                .header("Content-Type", contentType(image))
+                .header("Authorization", TokenProvider.authorization(token))
+                .timeout(TIMEOUT)
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(image))
+                .build();
+        if (async) {
+            CompletableFuture<Boolean> future = transport.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenCompose(response -> reauthorizeAsync(request, response))
+                    .thenApply(response -> onResponse(hash, response.statusCode()))
+                    .exceptionally(t -> onFailure(t));
+            future.thenAccept(claim::complete);
+            inFlight.add(future);
+            future.whenComplete((v, t) -> inFlight.remove(future));
+            return hash;
+        }
+        boolean stored = false;
+        try {
+            HttpResponse<Void> response = transport.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 401) {
+                HttpRequest renewed = TokenProvider.reauthorize(request);
+                if (renewed != null) response = transport.send(renewed, HttpResponse.BodyHandlers.discarding());
+            }
+            stored = onResponse(hash, response.statusCode());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stored = onFailure(e);
+        } catch (Exception e) {
+            stored = onFailure(e);
+        } finally {
+            // Frames sharing this upload are waiting on it, whatever happened
+            claim.complete(stored);
+        }
+        return stored ? hash : null;
+    }
+
+    // Another frame with the same hash claimed the upload
+    private String share(byte[] image, String hash, CompletableFuture<Boolean> original) {
+        if (original.isDone() && !original.join()) {
+            // Failed, and not yet given up by its own callback; try again
+            uploads.remove(hash, original);
+            return upload(image);
+        }
+        if (async) return hash;
+        try {
+            return original.get(TIMEOUT.toMillis() * 2, TimeUnit.MILLISECONDS) ? hash : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            LOG.warn("Gave up waiting for the upload of artifact " + hash);
+            return null;
+        }
+    }
+
+    // Logging in again blocks, so it runs off the client's completion threads
+    private CompletableFuture<HttpResponse<Void>> reauthorizeAsync(HttpRequest request, HttpResponse<Void> response) {
+        if (response.statusCode() != 401) return CompletableFuture.completedFuture(response);
+        return CompletableFuture.supplyAsync(() -> TokenProvider.reauthorize(request))
+                .thenCompose(renewed -> renewed == null
+                        ? CompletableFuture.completedFuture(response)
+                        : transport.sendAsync(renewed, HttpResponse.BodyHandlers.discarding()));
+    }
+
+    static boolean awaitUploads(Duration timeout) {
+        try {
+            CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            LOG.warn("Timed out waiting for " + inFlight.size() + " artifact uploads");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private static boolean onResponse(String hash, int status) {
+        if (status < 400) return true;
+        LOG.warn("Error " + status + " uploading artifact " + hash);
+        return false;
+    }
+
+    private static boolean onFailure(Throwable t) {
+        LOG.warn("Artifact upload failed: " + t.getMessage());
+        return false;
+    }
+
+    // Downscaled screenshot policies produce JPEG; everything else is the driver's PNG
+    private static String contentType(byte[] image) {
+        boolean jpeg = image.length > 2 && (image[0] & 0xFF) == 0xFF && (image[1] & 0xFF) == 0xD8;
+        return jpeg ? "image/jpeg" : "image/png";
+    }
+
+    static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
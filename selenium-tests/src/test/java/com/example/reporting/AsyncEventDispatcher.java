@@ -0,0 +1,665 @@
+package com.example.reporting;
+
+import com.google.gson.Gson;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide sender that drains queued reporter events off the test threads.
+ * <p>
+ * Events are taken from a bounded queue by a single daemon thread and sent with
+ * {@link HttpClient#sendAsync}. Each event is chained behind the previous one with the
+ * same key, so a test case's start, steps and finish arrive in order while different
+ * test cases proceed concurrently.
+ * <p>
+ * With batching enabled the sender coalesces whatever is queued (bounded by event
+ * count, byte budget and a short linger) into one request per run against the bulk
+ * endpoint. Batches for a run are sent one after another, which keeps every test
+ * case's events ordered. If the server does not know the bulk endpoint the dispatcher
+ * falls back to per-event calls for the rest of the process.
+ * <p>
+ * With {@code -Dreporter.spool=true} every event is first appended to an
+ * {@link EventSpool} and acknowledged only once the backend accepted it. Events that
+ * fail with a retryable error are re-sent by the sender every
+ * {@code reporter.spool.retryMs}, and whatever was still unacknowledged when a
+ * previous JVM died is replayed on startup.
+ * <p>
+ * Requests go through a {@link ResilientSender}. Events that still fail after their
+ * retries, or that were never attempted because the circuit breaker is open, are parked
+ * and re-dispatched every {@code reporter.retry.intervalMs} once the breaker lets
+ * requests through again. Without a spool at most {@code queueCapacity} events are
+ * parked; beyond that they are dropped. A test case's later events are parked behind its
+ * parked or failed ones instead of overtaking them, and {@link #holds} tells a synchronous
+ * client to send through here until that test case's backlog has drained.
+ * <p>
+ * With {@code -Dreporter.stream=true} events are written as they arrive into one open
+ * {@link EventStream} per run instead of separate requests. A stream segment is closed
+ * after {@code reporter.stream.idleMs} without events, after {@code reporter.stream.maxAgeMs},
+ * at {@code reporter.stream.maxEvents} or on {@link #flush}; the next segment starts once
+ * the previous one was acknowledged. Events the server did not apply fall back to
+ * per-event requests, which their idempotency keys make safe to repeat.
+ */
+final class AsyncEventDispatcher {
+    private static final ReporterLog LOG = ReporterLog.get("Reporter");
+    private static final CompletableFuture<Boolean> DELIVERED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> NOT_SENT = CompletableFuture.completedFuture(false);
+    static final int MAX_BATCH_EVENTS = 100;
+    private static volatile AsyncEventDispatcher shared;
+
+    private final BlockingQueue<ReporterEvent> queue;
+    private final BackpressurePolicy policy;
+    private final Path spillFile;
+    private final int batchMaxEvents;
+    private final long batchMaxBytes;
+    private final long lingerNanos;
+    private final ResilientSender sender;
+    private final Gson gson = new Gson();
+    private final Map<String, CompletableFuture<Boolean>> tails = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Object idleLock = new Object();
+    private final Object spillLock = new Object();
+    private final EventSpool spool;
+    private final long spoolSyncNanos;
+    private final long retryNanos;
+    private final int maxParked;
+    private final ConcurrentLinkedQueue<ReporterEvent> parked = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger parkedCount = new AtomicInteger();
+    // key -> events submitted and not yet delivered or dropped, and how many of them are parked
+    private final Map<String, Integer> backlog = new ConcurrentHashMap<>();
+    private final Map<String, Integer> parkedKeys = new ConcurrentHashMap<>();
+    // idempotency key -> callback for when the event settles; kept off the event so it is never spooled
+    private final Map<String, Runnable> settledCallbacks = new ConcurrentHashMap<>();
+    // Events recovered from the spool or read back from the spill file, sent ahead of the queue;
+    // touched only by the sender thread
+    private final Deque<ReporterEvent> replay = new ArrayDeque<>();
+    private long lastSync = System.nanoTime();
+    private long lastRetry = System.nanoTime();
+    private volatile boolean batchSupported = true;
+    private int spilled;
+    private final StreamSettings streaming;
+    // Open segments, touched only by the sender thread
+    private final Map<String, EventStream> streams = new HashMap<>();
+    private final Map<String, CompletableFuture<Void>> streamTails = new ConcurrentHashMap<>();
+    private volatile boolean streamSupported = true;
+    private volatile boolean closeStreams;
+
+    record StreamSettings(boolean enabled, int maxEvents, Duration idle, Duration maxAge) {
+        static StreamSettings fromSystemProperties() {
+            return new StreamSettings(Boolean.getBoolean("reporter.stream"),
+                    Integer.getInteger("reporter.stream.maxEvents", 500),
+                    Duration.ofMillis(Long.getLong("reporter.stream.idleMs", 1000)),
+                    Duration.ofMillis(Long.getLong("reporter.stream.maxAgeMs", 30000)));
+        }
+    }
+
+    AsyncEventDispatcher(int capacity, BackpressurePolicy policy, Path spillFile,
+                         int batchMaxEvents, long batchMaxBytes, Duration linger,
+                         EventSpool spool, Duration spoolSync, Duration retryInterval,
+                         StreamSettings streaming) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.policy = policy;
+        this.spillFile = spillFile;
+        this.batchMaxEvents = Math.max(1, batchMaxEvents);
+        this.batchMaxBytes = batchMaxBytes;
+        this.lingerNanos = linger.toNanos();
+        this.spool = spool;
+        this.spoolSyncNanos = spoolSync.toNanos();
+        this.retryNanos = retryInterval.toNanos();
+        this.maxParked = capacity;
+        this.streaming = streaming;
+        this.sender = ResilientSender.shared();
+        // Recovered before the sender starts, so they go out ahead of anything this run submits
+        recoverSpool();
+        VirtualThreads.start("reporter-sender", this::drainLoop);
+    }
+
+    static AsyncEventDispatcher shared() {
+        AsyncEventDispatcher instance = shared;
+        if (instance == null) {
+            synchronized (AsyncEventDispatcher.class) {
+                instance = shared;
+                if (instance == null) {
+                    int capacity = Integer.getInteger("reporter.async.queueCapacity", 1024);
+                    BackpressurePolicy policy = BackpressurePolicy.fromProperty(
+                            System.getProperty("reporter.async.backpressure"));
+                    Path spill = Paths.get(System.getProperty("reporter.async.spillFile", "target/reporter-spill.jsonl"));
+                    // The backend applies a batch in one atomic write and takes at most MAX_BATCH_EVENTS
+                    int batchMaxEvents = Boolean.getBoolean("reporter.batch")
+                            ? Math.min(Integer.getInteger("reporter.batch.maxEvents", MAX_BATCH_EVENTS), MAX_BATCH_EVENTS)
+                            : 1;
+                    long batchMaxBytes = Long.getLong("reporter.batch.maxBytes", 1024 * 1024);
+                    Duration linger = Duration.ofMillis(Long.getLong("reporter.batch.lingerMs", 50));
+                    instance = new AsyncEventDispatcher(capacity, policy, spill, batchMaxEvents, batchMaxBytes, linger,
+                            openSpool(),
+                            Duration.ofMillis(Long.getLong("reporter.spool.syncMs", 200)),
+                            Duration.ofMillis(Long.getLong("reporter.retry.intervalMs",
+                                    Long.getLong("reporter.spool.retryMs", 5000))),
+                            StreamSettings.fromSystemProperties());
+                    AsyncEventDispatcher hook = instance;
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        hook.flush(Duration.ofSeconds(5));
+                        hook.closeSpool();
+                    }));
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the shared dispatcher if one was started, or {@code null}.
+     */
+    static AsyncEventDispatcher sharedIfStarted() {
+        return shared;
+    }
+
+    private static EventSpool openSpool() {
+        if (!Boolean.getBoolean("reporter.spool")) return null;
+        // Outside target/, so `mvn clean` does not discard what a crashed run left behind
+        Path dir = Paths.get(System.getProperty("reporter.spool.dir", ".reporter-spool"));
+        try {
+            return EventSpool.open(dir, Integer.getInteger("reporter.spool.syncEvery", 64));
+        } catch (IOException e) {
+            LOG.warn("Spool disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether events for {@code key} are still queued, in flight or parked, so that a
+     * synchronous sender must queue that test case's later events behind them.
+     */
+    boolean holds(String key) {
+        return key != null && backlog.containsKey(key);
+    }
+
+    // The event is settled or dropped: it no longer holds back its test case
+    private void release(ReporterEvent event, boolean settled) {
+        count(backlog, event.key(), -1);
+        Runnable callback = event.idempotencyKey() != null ? settledCallbacks.remove(event.idempotencyKey()) : null;
+        if (settled && callback != null) callback.run();
+    }
+
+    private static void count(Map<String, Integer> counts, String key, int delta) {
+        if (key == null) return;
+        counts.compute(key, (k, n) -> {
+            int value = (n != null ? n : 0) + delta;
+            return value > 0 ? value : null;
+        });
+    }
+
+    void submit(ReporterEvent event) {
+        submit(event, null);
+    }
+
+    /**
+     * Queues an event and runs {@code onSettled} once the backend has taken or rejected it.
+     * The callback is not run if the event is dropped, or if it is only replayed from the
+     * spool by a later run.
+     */
+    void submit(ReporterEvent event, Runnable onSettled) {
+        if (onSettled != null && event.idempotencyKey() != null) {
+            settledCallbacks.put(event.idempotencyKey(), onSettled);
+        }
+        count(backlog, event.key(), 1);
+        if (spool != null) {
+            try {
+                event = event.withSpoolOffset(spool.append(event));
+            } catch (IOException e) {
+                LOG.warn("Failed to spool event: " + e.getMessage());
+            }
+        }
+        enqueue(event);
+    }
+
+    private void enqueue(ReporterEvent event) {
+        pending.incrementAndGet();
+        try {
+            switch (policy) {
+                case DROP_OLDEST -> {
+                    while (!queue.offer(event)) {
+                        ReporterEvent evicted = queue.poll();
+                        if (evicted != null) {
+                            dropped.incrementAndGet();
+                            release(evicted, false);
+                            LOG.warn("Queue full, dropped " + evicted.path());
+                            completed();
+                        }
+                    }
+                }
+                case SPILL -> {
+                    synchronized (spillLock) {
+                        // Once anything is on disk, keep spilling so replay preserves ordering
+                        if (spilled > 0 || !queue.offer(event)) {
+                            spill(event);
+                        }
+                    }
+                }
+                default -> queue.put(event);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            release(event, false);
+            completed();
+        } catch (IOException e) {
+            LOG.warn("Failed to spill event: " + e.getMessage());
+            release(event, false);
+            completed();
+        }
+    }
+
+    /**
+     * Waits until every submitted event has been sent or rejected, including events
+     * parked while the backend was unreachable.
+     *
+     * @return {@code false} if events were still outstanding when the timeout elapsed
+     */
+    boolean flush(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (idleLock) {
+            while (pending.get() > 0 || parkedCount.get() > 0) {
+                // Open stream segments are only acknowledged once closed; events still queued may open new ones
+                closeStreams = true;
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    LOG.warn("Flush timed out with " + pending.get() + " events pending and "
+                            + parkedCount.get() + " parked");
+                    return false;
+                }
+                try {
+                    // Parked events are retried by the sender without notifying, so wake up periodically
+                    TimeUnit.NANOSECONDS.timedWait(idleLock, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        if (dropped.get() > 0) {
+            LOG.warn(dropped.get() + " events were dropped under backpressure");
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        while (true) {
+            try {
+                maintain();
+                ReporterEvent event = replay.poll();
+                if (event == null) event = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    replaySpill();
+                    continue;
+                }
+                ReporterMetrics.QUEUE_WAIT.recordSince(event.queuedAt());
+                if (parkBehind(event)) continue;
+                if (streaming.enabled() && streamSupported && !sender.isOpen()) {
+                    stream(event);
+                } else if (batching()) {
+                    dispatchBatch(collectBatch(event));
+                } else {
+                    dispatch(event);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                LOG.warn("Sender error: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean batching() {
+        return batchMaxEvents > 1;
+    }
+
+    // Batches interleave test cases, so with batching on the whole run shares one lane
+    private String lane(ReporterEvent event) {
+        return batching() ? event.runId() : event.key();
+    }
+
+    private List<ReporterEvent> collectBatch(ReporterEvent first) throws InterruptedException {
+        List<ReporterEvent> batch = new ArrayList<>();
+        batch.add(first);
+        long bytes = first.body().length();
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchMaxEvents && bytes < batchMaxBytes) {
+            long remaining = deadline - System.nanoTime();
+            ReporterEvent next = replay.poll();
+            if (next == null) next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) break;
+            ReporterMetrics.QUEUE_WAIT.recordSince(next.queuedAt());
+            if (parkBehind(next)) continue;
+            batch.add(next);
+            bytes += next.body().length();
+        }
+        return batch;
+    }
+
+    // Sending an event while earlier ones of its test case wait for a retry would reorder them
+    private boolean parkBehind(ReporterEvent event) {
+        if (event.key() == null || !parkedKeys.containsKey(event.key())) return false;
+        settle(event, false);
+        completed();
+        return true;
+    }
+
+    private void dispatch(ReporterEvent event) {
+        chain(lane(event), () -> send(event), List.of(event));
+    }
+
+    private void dispatchBatch(List<ReporterEvent> events) {
+        Map<String, List<ReporterEvent>> byRun = new LinkedHashMap<>();
+        for (ReporterEvent event : events) {
+            byRun.computeIfAbsent(event.baseUrl() + "|" + event.runId(), k -> new ArrayList<>()).add(event);
+        }
+        for (List<ReporterEvent> group : byRun.values()) {
+            chain(group.get(0).runId(), () -> sendBatch(group), group);
+        }
+    }
+
+    private void stream(ReporterEvent event) throws InterruptedException {
+        String key = event.baseUrl() + "|" + event.runId();
+        EventStream segment = streams.get(key);
+        if (segment == null) {
+            segment = openStream(key, event);
+        }
+        segment.write(event, envelope(new StringBuilder(event.body().length() + 128), event).toString());
+        if (segment.size() >= streaming.maxEvents()) {
+            // Bound what is in flight: wait for this segment's acknowledgement before opening another
+            CompletableFuture<Void> done = closeStream(key);
+            try {
+                done.get(streaming.maxAge().plus(sender.timeout()).toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                LOG.warn("Stream segment for run " + event.runId() + " still unacknowledged: " + e.getMessage());
+            }
+        }
+    }
+
+    private EventStream openStream(String key, ReporterEvent first) {
+        EventStream segment = new EventStream(first.baseUrl(), first.runId());
+        Duration timeout = streaming.maxAge().plus(streaming.idle()).plus(sender.timeout());
+        CompletableFuture<Void> previous = streamTails.getOrDefault(key, CompletableFuture.completedFuture(null));
+        CompletableFuture<Void> done = previous
+                .thenCompose(v -> segment.send(sender, timeout))
+                .thenAccept(result -> settleStream(segment, result));
+        streamTails.put(key, done);
+        done.whenComplete((v, t) -> streamTails.remove(key, done));
+        streams.put(key, segment);
+        return segment;
+    }
+
+    private CompletableFuture<Void> closeStream(String key) {
+        EventStream segment = streams.remove(key);
+        if (segment != null) segment.close();
+        return streamTails.getOrDefault(key, CompletableFuture.completedFuture(null));
+    }
+
+    private void closeIdleStreams() {
+        if (streams.isEmpty()) return;
+        boolean all = closeStreams;
+        closeStreams = false;
+        long now = System.nanoTime();
+        List<String> expired = new ArrayList<>();
+        streams.forEach((key, segment) -> {
+            if (all || now - segment.lastWrite() >= streaming.idle().toNanos()
+                    || now - segment.openedAt() >= streaming.maxAge().toNanos()) {
+                expired.add(key);
+            }
+        });
+        expired.forEach(this::closeStream);
+    }
+
+    private void settleStream(EventStream segment, ResilientSender.Result<String> result) {
+        List<ReporterEvent> events = segment.events();
+        int applied = 0;
+        if (result.response() != null && isUnknownRoute(result.response())) {
+            streamSupported = false;
+            LOG.warn("Stream endpoint unavailable (" + result.status() + "), falling back to per-event requests");
+        } else {
+            applied = Math.min(EventStream.applied(result), events.size());
+            if (applied == events.size()) {
+                LOG.debug(() -> "Success " + result.status() + " (stream of " + events.size() + ")");
+            } else {
+                report(result, "/runs/" + segment.events().get(0).runId() + "/stream",
+                        "stream, " + events.size() + " events");
+            }
+        }
+        // Unapplied events are parked and re-sent individually by the sender thread
+        for (int i = 0; i < events.size(); i++) {
+            settle(events.get(i), i < applied);
+            completed();
+        }
+    }
+
+    private void chain(String lane, Supplier<CompletableFuture<Boolean>> send, List<ReporterEvent> events) {
+        CompletableFuture<Boolean> previous = tails.getOrDefault(lane, DELIVERED);
+        // The tail completes only once its events are settled, so a successor whose predecessor
+        // was not delivered is parked after it and retried in the same order
+        CompletableFuture<Boolean> next = previous
+                .thenCompose(ok -> Boolean.TRUE.equals(ok) ? send.get() : NOT_SENT)
+                .whenComplete((delivered, t) -> {
+                    for (ReporterEvent event : events) {
+                        settle(event, Boolean.TRUE.equals(delivered));
+                        completed();
+                    }
+                });
+        tails.put(lane, next);
+        next.whenComplete((delivered, t) -> tails.remove(lane, next));
+    }
+
+    private void settle(ReporterEvent event, boolean delivered) {
+        if (delivered) {
+            if (spool != null) spool.ack(event.spoolOffset());
+            release(event, true);
+        } else if (event.spoolOffset() >= 0 || parkedCount.get() < maxParked) {
+            count(parkedKeys, event.key(), 1);
+            parked.add(event);
+            parkedCount.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+            release(event, false);
+            LOG.warn("Retry buffer full, dropped " + event.path());
+        }
+    }
+
+    private CompletableFuture<Boolean> sendBatch(List<ReporterEvent> events) {
+        if (!batchSupported) return sendEach(events);
+        ReporterEvent first = events.get(0);
+        String path = "/api/executions/runs/" + first.runId() + "/events/batch";
+        // Each event carries its own key, so the batch itself needs none
+        HttpRequest request = jsonRequest(first.baseUrl(), path, first.runId(), null, batchBody(events));
+        return sender.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenCompose(result -> {
+                    if (result.response() != null && isUnknownRoute(result.response())) {
+                        batchSupported = false;
+                        LOG.warn("Bulk endpoint unavailable (" + result.status()
+                                + "), falling back to per-event requests");
+                        return sendEach(events);
+                    }
+                    report(result, path, "batch of " + events.size());
+                    return CompletableFuture.completedFuture(result.settled());
+                });
+    }
+
+    private static void report(ResilientSender.Result<?> result, String path, String label) {
+        switch (result.outcome()) {
+            case DELIVERED -> LOG.debug(() -> "Success " + result.status() + " (" + label + ")");
+            case SHORT_CIRCUITED -> { }
+            default -> {
+                if (result.error() != null) {
+                    LOG.warn("Request failed on " + path + ": " + result.error().getMessage());
+                } else {
+                    LOG.warn("Error " + result.status() + " on " + path);
+                }
+            }
+        }
+    }
+
+    // A missing route answers with Express' HTML 404; a missing run answers with JSON
+    private static boolean isUnknownRoute(HttpResponse<?> response) {
+        int status = response.statusCode();
+        if (status == 405 || status == 501) return true;
+        return status == 404 && !response.headers().firstValue("Content-Type").orElse("").contains("json");
+    }
+
+    private CompletableFuture<Boolean> sendEach(List<ReporterEvent> events) {
+        CompletableFuture<Boolean> chain = DELIVERED;
+        for (ReporterEvent event : events) {
+            chain = chain.thenCompose(ok -> send(event).thenApply(sent -> ok && sent));
+        }
+        return chain;
+    }
+
+    private static String batchBody(List<ReporterEvent> events) {
+        StringBuilder sb = new StringBuilder(events.size() * 128).append("{\"events\":[");
+        for (int i = 0; i < events.size(); i++) {
+            if (i > 0) sb.append(',');
+            envelope(sb, events.get(i));
+        }
+        return sb.append("]}").toString();
+    }
+
+    // The bulk and stream endpoints share this shape
+    private static StringBuilder envelope(StringBuilder sb, ReporterEvent event) {
+        // Bodies are already JSON, so they are embedded verbatim rather than re-parsed
+        return sb.append("{\"type\":\"").append(event.type())
+                .append("\",\"testCaseId\":\"").append(event.testCaseId())
+                .append("\",\"idempotencyKey\":\"").append(event.idempotencyKey())
+                .append("\",\"data\":").append(event.body()).append('}');
+    }
+
+    private HttpRequest jsonRequest(String baseUrl, String path, String runId, String idempotencyKey, String body) {
+        HttpRequest.Builder builder = CanonicalIds.mark(sender.transport().request(URI.create(baseUrl + path)), runId)
+                .header("Content-Type", "application/json")
+                .header("Authorization", TokenProvider.authorizationFor(baseUrl))
+                .timeout(sender.timeout());
+        // Events spooled by an older build have no key
+        if (idempotencyKey != null) builder.header("Idempotency-Key", idempotencyKey);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return builder.POST(RequestCompression.publisher(builder, bytes, 0, bytes.length, true)).build();
+    }
+
+    private CompletableFuture<Boolean> send(ReporterEvent event) {
+        HttpRequest request = jsonRequest(event.baseUrl(), event.path(), event.runId(), event.idempotencyKey(),
+                event.body());
+        return sender.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenApply(result -> {
+                    report(result, event.path(), "async " + event.path());
+                    return result.settled();
+                });
+    }
+
+    private void closeSpool() {
+        if (spool == null) return;
+        try {
+            int outstanding = spool.outstanding();
+            spool.close();
+            if (outstanding > 0) {
+                LOG.warn("" + outstanding + " undelivered events left in the spool for the next run");
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to close spool: " + e.getMessage());
+        }
+    }
+
+    private void recoverSpool() {
+        if (spool == null) return;
+        List<ReporterEvent> recovered = spool.recover();
+        if (recovered.isEmpty()) return;
+        LOG.info("Replaying " + recovered.size() + " unacknowledged events from the spool");
+        for (ReporterEvent event : recovered) {
+            pending.incrementAndGet();
+            count(backlog, event.key(), 1);
+            replay.add(event);
+        }
+    }
+
+    private void maintain() {
+        closeIdleStreams();
+        long now = System.nanoTime();
+        if (now - lastRetry >= retryNanos && !parked.isEmpty() && !sender.isOpen()) {
+            lastRetry = now;
+            ReporterEvent event;
+            while ((event = parked.poll()) != null) {
+                pending.incrementAndGet();
+                parkedCount.decrementAndGet();
+                count(parkedKeys, event.key(), -1);
+                dispatch(event);
+            }
+        }
+        if (spool != null && now - lastSync >= spoolSyncNanos) {
+            lastSync = now;
+            try {
+                spool.sync();
+            } catch (IOException e) {
+                LOG.warn("Spool sync failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void completed() {
+        if (pending.decrementAndGet() <= 0) {
+            synchronized (idleLock) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void spill(ReporterEvent event) throws IOException {
+        Path parent = spillFile.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(gson.toJson(event));
+            writer.newLine();
+        }
+        spilled++;
+    }
+
+    private void replaySpill() throws IOException {
+        List<String> lines;
+        synchronized (spillLock) {
+            if (spilled == 0) return;
+            lines = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+            Files.delete(spillFile);
+            spilled = 0;
+            // Queue for the sender while still holding the lock so newer events cannot overtake the
+            // spilled ones; from there they are parked, batched or streamed like any other event
+            for (String line : lines) {
+                if (!line.isBlank()) replay.add(gson.fromJson(line, ReporterEvent.class));
+            }
+        }
+        LOG.info("Replayed " + lines.size() + " spilled events");
+    }
+}
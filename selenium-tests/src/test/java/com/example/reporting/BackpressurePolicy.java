@@ -0,0 +1,18 @@
+package com.example.reporting;
+
+/**
+ * What the async dispatcher does when its in-memory queue is full.
+ */
+public enum BackpressurePolicy {
+    /** Block the test thread until the sender frees a slot. */
+    BLOCK,
+    /** Evict the oldest queued event to make room for the new one. */
+    DROP_OLDEST,
+    /** Append overflow to a spill file that the sender replays once the queue drains. */
+    SPILL;
+
+    static BackpressurePolicy fromProperty(String value) {
+        if (value == null || value.isBlank()) return BLOCK;
+        return valueOf(value.trim().toUpperCase().replace('-', '_'));
+    }
+}
@@ -1,102 +1,42 @@
 package com.example.reporting;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.WebDriverException;
 import org.testng.ITestContext;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Optional;
 import org.testng.annotations.Parameters;
 
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
 import java.util.Base64;
 import java.util.UUID;
 
 public abstract class BaseTest {
-    protected static ThreadLocal<WebDriver> driverThread = new ThreadLocal<>();
-    protected static ThreadLocal<ReporterClient> reporterClientThread = new ThreadLocal<>();
-    protected static ThreadLocal<String> executionIdThread = new ThreadLocal<>();
+    private static final ReporterLog LOG = ReporterLog.get("BaseTest");
     protected static String sharedRunId = null;
     protected static Object runIdLock = new Object();
-    protected static String sharedToken = null;
-    protected static Object tokenLock = new Object();
-
-    protected WebDriver driver;
-    protected ReporterClient reporterClient;
-    protected String executionId;
-
-    private static String getAuthToken(String apiBase) throws IOException, InterruptedException {
-        String email = System.getProperty("reporter.email", "Hariprasanthtest@gmail.com");
-        String password = System.getProperty("reporter.password", "Inferno0!");
-        
-        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
-        JsonObject loginBody = new JsonObject();
-        loginBody.addProperty("username", email);
-        loginBody.addProperty("password", password);
-        
-        String json = loginBody.toString();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(apiBase + "/api/auth/login"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
-                .timeout(Duration.ofSeconds(10))
-                .build();
-        
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() == 200) {
-            Gson gson = new Gson();
-            JsonObject result = gson.fromJson(response.body(), JsonObject.class);
-            return result.get("token").getAsString();
-        }
-        throw new IOException("Failed to authenticate: " + response.statusCode());
-    }
 
     @Parameters({"browser"})
     @BeforeMethod(alwaysRun = true)
     public void setUp(@Optional("chrome") String browser, ITestContext context) {
-        if (browser != null && browser.equalsIgnoreCase("chrome")) {
-            this.driver = new ChromeDriver();
-        } else if (browser != null && browser.equalsIgnoreCase("edge")) {
-            this.driver = new EdgeDriver();
-        } else {
-            this.driver = new ChromeDriver();
-        }
-        this.driver.manage().window().maximize();
-        driverThread.set(this.driver);
+        // Everything that can reject a bad setting is resolved before a browser is acquired
+        boolean pooled = Boolean.parseBoolean(System.getProperty("driver.pool",
+                context.getCurrentXmlTest().getParameter("driverPool")));
+        BrowserProfile profile = BrowserProfile.resolve(context.getCurrentXmlTest());
+        String policySpec = System.getProperty("reporter.screenshots",
+                context.getCurrentXmlTest().getParameter("screenshotPolicy"));
+        ScreenshotPolicy screenshotPolicy = ScreenshotPolicy.fromSpec(policySpec);
+        NetworkProfile networkProfile = NetworkProfile.resolve(context.getCurrentXmlTest());
         
-        this.executionId = UUID.randomUUID().toString();
-        executionIdThread.set(this.executionId);
+        String executionId = UUID.randomUUID().toString();
         
         String apiBase = System.getProperty("reporter.api", "http://localhost:4000");
-        String token;
-        try {
-            // Get auth token once for entire test suite (thread-safe)
-            synchronized (tokenLock) {
-                if (sharedToken == null) {
-                    sharedToken = getAuthToken(apiBase);
-                    System.out.println("[BaseTest] Authenticated successfully. Token: " + sharedToken.substring(0, 20) + "...");
-                }
-            }
-            token = sharedToken;
-        } catch (Exception e) {
-            System.err.println("[BaseTest] Authentication failed: " + e.getMessage());
-            e.printStackTrace();
-            token = "";
-        }
-        
-        this.reporterClient = new ReporterClient(apiBase, token);
-        reporterClientThread.set(this.reporterClient);
+        // Logs in once per suite; later reads are lock-free and the token is refreshed before it expires
+        String token = TokenProvider.shared(apiBase).current();
+        ReporterClient reporterClient = new ReporterClient(apiBase, token);
         
         // Generate runId once for entire test suite (thread-safe with static lock)
         synchronized (runIdLock) {
@@ -106,37 +46,97 @@ public abstract class BaseTest {
                     String tags = System.getProperty("test.tags", "");
                     String[] tagArray = tags.isBlank() ? new String[0] : tags.split(",");
                     reporterClient.startRunWithTags(sharedRunId, browser, tagArray);
-                    System.out.println("[BaseTest] setUp: Generated and started sharedRunId=" + sharedRunId + " with tags=" + tags);
+                    LOG.info("Started run " + sharedRunId + " with tags=" + tags);
                 }
             }
         }
         
-        // Store shared runId in context for test access
-        context.setAttribute("runId", sharedRunId);
+        WebDriver driver = pooled ? DriverPool.shared().lease(browser, profile) : DriverFactory.create(browser, profile);
+        NetworkMonitor network = null;
+        try {
+            network = networkProfile.attach(driver);
+            // The run is suite-wide; everything per invocation lives on the thread-bound context
+            context.setAttribute("runId", sharedRunId);
+            new ReportingContext(sharedRunId, executionId, browser, driver, reporterClient, screenshotPolicy, network).bind();
+        } catch (RuntimeException | Error e) {
+            // tearDown finds no context to release, so the browser (or its pool permit) goes back here
+            if (network != null) network.close();
+            DriverPool.returnOrQuit(driver, false);
+            throw e;
+        }
         
-        System.out.println("[BaseTest-" + Thread.currentThread().getId() + "] setUp: executionId=" + executionId + ", browser=" + browser + ", runId=" + sharedRunId + ", api=" + apiBase);
-        context.setAttribute("driver", this.driver);
-        context.setAttribute("reporterClient", this.reporterClient);
-        context.setAttribute("executionId", this.executionId);
-        context.setAttribute("browserName", browser);
+        LOG.debug(() -> "setUp: executionId=" + executionId + ", browser=" + browser + ", profile=" + profile
+                + ", runId=" + sharedRunId + ", api=" + apiBase);
     }
 
     @AfterMethod(alwaysRun = true)
-    public void tearDown() {
-        if (driver != null) {
-            driver.quit();
+    public void tearDown(ITestResult result) {
+        try {
+            // Lift blocking and interception before the session can go back to the pool
+            NetworkMonitor network = reporting().network();
+            if (network != null) network.close();
+            WebDriver driver = driver();
+            if (driver != null) {
+                // A WebDriver error may have left the session unusable, so never hand it out again
+                boolean healthy = !(result.getThrowable() instanceof WebDriverException);
+                DriverPool.returnOrQuit(driver, healthy);
+            }
+        } catch (IllegalStateException e) {
+            // setUp failed before binding a context; nothing to release
+        } finally {
+            ReportingContext.unbind();
+        }
+    }
+
+    protected ReportingContext reporting() {
+        return ReportingContext.current();
+    }
+
+    protected WebDriver driver() {
+        return reporting().driver();
+    }
+
+    protected ReporterClient reporterClient() {
+        return reporting().client();
+    }
+
+    protected String runId() {
+        return reporting().runId();
+    }
+
+    protected String testCaseId() {
+        return reporting().testCaseId();
+    }
+
+    /**
+     * Returns a lazy screenshot for a step, captured according to the active {@link ScreenshotPolicy}.
+     */
+    protected ScreenshotSupplier screenshot() {
+        WebDriver current = driver();
+        ScreenshotPolicy policy = reporting().screenshotPolicy();
+        return status -> current instanceof TakesScreenshot && policy != null
+                ? policy.capture((TakesScreenshot) current, status)
+                : null;
+    }
+
+    protected byte[] captureScreenshot() {
+        WebDriver driver = driver();
+        if (driver == null) return null;
+        try {
+            return ScreenshotPolicies.capture((TakesScreenshot) driver, OutputType.BYTES);
+        } catch (Exception e) {
+            LOG.warn("Failed to capture screenshot: " + e.getMessage());
+            return null;
         }
-        driverThread.remove();
-        reporterClientThread.remove();
-        executionIdThread.remove();
     }
 
     protected String captureScreenshotBase64() {
+        WebDriver driver = driver();
         if (driver == null) return null;
         try {
-            return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+            return ScreenshotPolicies.capture((TakesScreenshot) driver, OutputType.BASE64);
         } catch (Exception e) {
-            System.err.println("Failed to capture screenshot: " + e.getMessage());
+            LOG.warn("Failed to capture screenshot: " + e.getMessage());
             return null;
         }
     }
@@ -0,0 +1,175 @@
+package com.example.reporting;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.testng.xml.XmlTest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Browser launch settings, selected per suite with the {@code browserProfile} parameter
+ * (or {@code -Dbrowser.profile}).
+ * <ul>
+ *   <li>{@code default} — headed and maximized, as a developer would see it</li>
+ *   <li>{@code headless} — new headless mode with a fixed window size</li>
+ *   <li>{@code light} — headless plus no images, extensions or GPU, and
+ *       {@code pageLoadStrategy=eager}, for dense smoke runs on CI agents</li>
+ * </ul>
+ * {@code windowSize} (e.g. {@code 1366x768}) overrides the window size, and
+ * {@code userDataDir} points at a pre-warmed profile that each session starts from a
+ * private copy of, since Chromium locks a profile directory per process. The copy is
+ * deleted when {@link DriverFactory#quit} ends the session; because every session pays for
+ * a full copy, a warm profile only pays off with {@code driver.pool}, where one copy serves
+ * many tests.
+ */
+public final class BrowserProfile {
+    private static final String DEFAULT_WINDOW = "1920x1080";
+
+    private final String name;
+    private final boolean headless;
+    private final String windowSize;
+    private final boolean lightweight;
+    private final Path userDataTemplate;
+
+    private BrowserProfile(String name, boolean headless, String windowSize, boolean lightweight, Path userDataTemplate) {
+        this.name = name;
+        this.headless = headless;
+        this.windowSize = windowSize;
+        this.lightweight = lightweight;
+        this.userDataTemplate = userDataTemplate;
+    }
+
+    public static BrowserProfile defaults() {
+        return new BrowserProfile("default", false, null, false, null);
+    }
+
+    public static BrowserProfile named(String name, String windowSize, String userDataDir) {
+        String profile = name == null || name.isBlank() ? "default" : name.trim().toLowerCase();
+        Path template = userDataDir == null || userDataDir.isBlank() ? null : Paths.get(userDataDir);
+        switch (profile) {
+            case "default":
+                return new BrowserProfile(profile, false, windowSize, false, template);
+            case "headless":
+                return new BrowserProfile(profile, true, windowSize != null ? windowSize : DEFAULT_WINDOW, false, template);
+            case "light":
+                return new BrowserProfile(profile, true, windowSize != null ? windowSize : DEFAULT_WINDOW, true, template);
+            default:
+                throw new IllegalArgumentException("Unknown browser profile: " + name);
+        }
+    }
+
+    /**
+     * Resolves the profile for a {@code <test>}; system properties win over suite parameters.
+     */
+    public static BrowserProfile resolve(XmlTest test) {
+        return named(
+                System.getProperty("browser.profile", test.getParameter("browserProfile")),
+                System.getProperty("browser.windowSize", test.getParameter("windowSize")),
+                System.getProperty("browser.userDataDir", test.getParameter("userDataDir")));
+    }
+
+    /**
+     * Identifies sessions that are interchangeable, for pooling.
+     */
+    String key() {
+        return name + "|" + windowSize + "|" + userDataTemplate;
+    }
+
+    boolean maximize() {
+        return windowSize == null;
+    }
+
+    <T extends ChromiumOptions<?>> T apply(T options) {
+        if (headless) {
+            options.addArguments("--headless=new");
+        }
+        if (windowSize != null) {
+            options.addArguments("--window-size=" + windowSize.replace('x', ','));
+        }
+        if (lightweight) {
+            options.addArguments("--disable-extensions", "--disable-gpu", "--blink-settings=imagesEnabled=false");
+            options.setExperimentalOption("prefs", Map.of("profile.managed_default_content_settings.images", 2));
+            options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+        }
+        return options;
+    }
+
+    /**
+     * Sets the session's private copy of the template profile, from {@link #copyUserData()}.
+     */
+    <T extends ChromiumOptions<?>> T apply(T options, Path userDataDir) {
+        apply(options);
+        if (userDataDir != null) {
+            options.addArguments("--user-data-dir=" + userDataDir);
+        }
+        return options;
+    }
+
+    /**
+     * Copies the template profile for one session; {@code null} when the profile has none.
+     * The caller hands the copy to {@link #deleteUserData} once the session is gone.
+     */
+    Path copyUserData() {
+        if (userDataTemplate == null) return null;
+        Path template = userDataTemplate;
+        Path target = null;
+        try {
+            target = Files.createTempDirectory("browser-profile-");
+            Copies.LIVE.add(target);
+            try (Stream<Path> paths = Files.walk(template)) {
+                for (Path source : (Iterable<Path>) paths::iterator) {
+                    Path dest = target.resolve(template.relativize(source).toString());
+                    // Lock files belong to the browser that warmed the template
+                    if (source.getFileName().toString().startsWith("Singleton")) continue;
+                    if (Files.isDirectory(source)) {
+                        Files.createDirectories(dest);
+                    } else {
+                        Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            deleteUserData(target);
+            throw new UncheckedIOException("Failed to copy browser profile " + template, e);
+        }
+    }
+
+    static void deleteUserData(Path copy) {
+        if (copy == null) return;
+        Copies.LIVE.remove(copy);
+        deleteQuietly(copy);
+    }
+
+    // Copies whose session was never quit; one shutdown hook sweeps them, registered on first use
+    private static final class Copies {
+        static final Set<Path> LIVE = ConcurrentHashMap.newKeySet();
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> LIVE.forEach(BrowserProfile::deleteQuietly)));
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException ignored) {
+            // best effort
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.reporting;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.net.http.HttpRequest;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The backend's own IDs for runs and test cases, learned from the start responses.
+ * <p>
+ * Until a run's start response has been read, requests carry the caller's run ID and the
+ * backend resolves it (a document read, then a query) on every request. Once this maps
+ * it to the document ID the backend returned, requests use that and send {@link #HEADER},
+ * which lets the backend skip resolving the run; it only checks that the test case belongs
+ * to that run, so a step costs one read and a single write. Test case IDs are the client's
+ * own unless the backend answers a synchronous start with a different one.
+ */
+final class CanonicalIds {
+    static final String HEADER = "X-Reporter-Ids";
+    static final String CANONICAL = "canonical";
+
+    private static final Map<String, String> runs = new ConcurrentHashMap<>();
+    private static final Set<String> canonicalRuns = ConcurrentHashMap.newKeySet();
+    private static final Map<String, String> testCases = new ConcurrentHashMap<>();
+
+    private CanonicalIds() {
+    }
+
+    static String run(String runId) {
+        return runId == null ? null : runs.getOrDefault(runId, runId);
+    }
+
+    static String testCase(String testCaseId) {
+        return testCaseId == null ? null : testCases.getOrDefault(testCaseId, testCaseId);
+    }
+
+    /**
+     * Whether {@code runId} is a document ID the backend handed out.
+     */
+    static boolean isCanonical(String runId) {
+        return runId != null && canonicalRuns.contains(runId);
+    }
+
+    /**
+     * Adds {@link #HEADER} when {@code runId} is canonical.
+     */
+    static HttpRequest.Builder mark(HttpRequest.Builder builder, String runId) {
+        return isCanonical(runId) ? builder.header(HEADER, CANONICAL) : builder;
+    }
+
+    static void learnRun(String runId, String responseBody) {
+        String id = id(responseBody);
+        if (id == null) return;
+        canonicalRuns.add(id);
+        runs.put(runId, id);
+    }
+
+    static void learnTestCase(String testCaseId, String responseBody) {
+        String id = id(responseBody);
+        if (id != null && !id.equals(testCaseId)) testCases.put(testCaseId, id);
+    }
+
+    static void forgetTestCase(String testCaseId) {
+        testCases.remove(testCaseId);
+    }
+
+    // Older backends may answer with something other than the created record
+    private static String id(String responseBody) {
+        if (responseBody == null || responseBody.isBlank()) return null;
+        try {
+            JsonElement json = JsonParser.parseString(responseBody);
+            if (!json.isJsonObject()) return null;
+            JsonObject object = json.getAsJsonObject();
+            return object.has("id") && object.get("id").isJsonPrimitive() ? object.get("id").getAsString() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.reporting;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Consecutive-failure circuit breaker shared by every reporter client in the process.
+ * <p>
+ * After {@code failureThreshold} failed requests in a row the breaker opens and
+ * requests are refused immediately for {@code openDuration}; then a single probe is let
+ * through (half-open) and its outcome closes or re-opens the breaker. A probe that ends
+ * without an outcome (the sending thread was interrupted, or the request could not be
+ * built) is handed back with {@link #abandonProbe()}, and one that has not reported back
+ * within {@code openDuration} is presumed lost, so the breaker never stays half-open.
+ */
+final class CircuitBreaker {
+    private static final ReporterLog LOG = ReporterLog.get("Reporter");
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final CircuitBreaker SHARED = new CircuitBreaker(
+            Integer.getInteger("reporter.breaker.failureThreshold", 5),
+            Duration.ofMillis(Long.getLong("reporter.breaker.openMs", 30000)));
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long probeStartedAt;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    static CircuitBreaker shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns whether a request may be sent now; claims the probe slot when half-opening.
+     */
+    synchronized boolean tryAcquire() {
+        long now = clock.getAsLong();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openNanos) return false;
+                break;
+            default:
+                // A probe is already in flight, unless it never reported back
+                if (now - probeStartedAt < openNanos) return false;
+                LOG.warn("Circuit breaker probe lost, sending another");
+        }
+        state = State.HALF_OPEN;
+        probeStartedAt = now;
+        return true;
+    }
+
+    /**
+     * Returns whether requests would currently be refused, without claiming a probe.
+     */
+    synchronized boolean isOpen() {
+        long now = clock.getAsLong();
+        return state == State.OPEN && now - openedAt < openNanos
+                || state == State.HALF_OPEN && now - probeStartedAt < openNanos;
+    }
+
+    /**
+     * Hands back a probe that ended without an outcome; the next request probes again at once.
+     * Does nothing unless a probe is outstanding.
+     */
+    synchronized void abandonProbe() {
+        if (state != State.HALF_OPEN) return;
+        state = State.OPEN;
+        openedAt = clock.getAsLong() - openNanos;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+    }
+
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOG.warn("Circuit breaker opened after " + consecutiveFailures + " failures");
+            }
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.reporting;
+
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CircuitBreakerTests {
+    private static final Duration OPEN = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeMethod
+    public void createBreaker() {
+        now.set(0);
+        breaker = new CircuitBreaker(3, OPEN, now::get);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            Assert.assertTrue(breaker.tryAcquire());
+            breaker.recordFailure();
+        }
+    }
+
+    @Test
+    public void opensAfterTheThresholdOfConsecutiveFailures() {
+        fail(2);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+        fail(1);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+        Assert.assertTrue(breaker.isOpen());
+        Assert.assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void aSuccessResetsTheFailureCount() {
+        fail(2);
+        breaker.recordSuccess();
+        fail(2);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void letsOneProbeThroughOnceTheOpenPeriodEnds() {
+        fail(3);
+        advance(OPEN.minusMillis(1));
+        Assert.assertFalse(breaker.tryAcquire());
+        advance(Duration.ofMillis(1));
+        Assert.assertFalse(breaker.isOpen(), "no longer refusing once a probe may go");
+        Assert.assertTrue(breaker.tryAcquire());
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.HALF_OPEN);
+        Assert.assertTrue(breaker.isOpen());
+        Assert.assertFalse(breaker.tryAcquire(), "a second request while the probe is in flight");
+    }
+
+    @Test
+    public void aSuccessfulProbeClosesTheBreaker() {
+        fail(3);
+        advance(OPEN);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.recordSuccess();
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+        Assert.assertFalse(breaker.isOpen());
+        // The count starts over: one failure does not re-open it
+        fail(1);
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void aFailedProbeReopensForAnotherFullPeriod() {
+        fail(3);
+        advance(OPEN);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.recordFailure();
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+        advance(OPEN.minusMillis(1));
+        Assert.assertFalse(breaker.tryAcquire());
+        advance(Duration.ofMillis(1));
+        Assert.assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void anAbandonedProbeIsHandedBackAtOnce() {
+        fail(3);
+        advance(OPEN);
+        Assert.assertTrue(breaker.tryAcquire());
+        breaker.abandonProbe();
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.OPEN);
+        Assert.assertFalse(breaker.isOpen());
+        Assert.assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    public void abandoningWithoutAProbeChangesNothing() {
+        breaker.abandonProbe();
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.CLOSED);
+        fail(3);
+        breaker.abandonProbe();
+        Assert.assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void aProbeThatNeverReportsBackIsPresumedLost() {
+        fail(3);
+        advance(OPEN);
+        Assert.assertTrue(breaker.tryAcquire());
+        advance(OPEN.minusMillis(1));
+        Assert.assertFalse(breaker.tryAcquire());
+        advance(Duration.ofMillis(1));
+        Assert.assertFalse(breaker.isOpen());
+        Assert.assertTrue(breaker.tryAcquire());
+        Assert.assertEquals(breaker.state(), CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    public void anInterruptedProbeDoesNotLeaveTheBreakerHalfOpen() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch hold = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            received.countDown();
+            try {
+                hold.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            ResilientSender sender = new ResilientSender(
+                    new ReporterTransport(HttpClient.newHttpClient(), false),
+                    new RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofSeconds(10)),
+                    breaker);
+            fail(3);
+            advance(OPEN);
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + server.getAddress().getPort() + "/probe")).build();
+            AtomicReference<Throwable> thrown = new AtomicReference<>();
+            Thread probe = new Thread(() -> {
+                try {
+                    sender.send(request, HttpResponse.BodyHandlers.discarding());
+                } catch (Throwable t) {
+                    thrown.set(t);
+                }
+            });
+            probe.start();
+            Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+            probe.interrupt();
+            probe.join(5000);
+            Assert.assertTrue(thrown.get() instanceof InterruptedException, "got " + thrown.get());
+            Assert.assertFalse(breaker.isOpen());
+            Assert.assertTrue(breaker.tryAcquire());
+        } finally {
+            hold.countDown();
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.reporting;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates browser sessions for tests and the {@link DriverPool}.
+ */
+public final class DriverFactory {
+    // Session -> its private copy of the template profile, deleted when the session quits
+    private static final Map<WebDriver, Path> userDataDirs = new ConcurrentHashMap<>();
+
+    private DriverFactory() {
+    }
+
+    /**
+     * Normalizes a browser parameter to the key drivers are created and pooled under.
+     */
+    static String browserKey(String browser) {
+        return browser != null && browser.equalsIgnoreCase("edge") ? "edge" : "chrome";
+    }
+
+    public static WebDriver create(String browser) {
+        return create(browser, BrowserProfile.defaults());
+    }
+
+    public static WebDriver create(String browser, BrowserProfile profile) {
+        long start = System.nanoTime();
+        Path userDataDir = profile.copyUserData();
+        WebDriver driver;
+        try {
+            driver = "edge".equals(browserKey(browser))
+                    ? new EdgeDriver(profile.apply(new EdgeOptions(), userDataDir))
+                    : new ChromeDriver(profile.apply(new ChromeOptions(), userDataDir));
+        } catch (RuntimeException e) {
+            BrowserProfile.deleteUserData(userDataDir);
+            throw e;
+        }
+        if (userDataDir != null) {
+            userDataDirs.put(driver, userDataDir);
+        }
+        if (profile.maximize()) {
+            try {
+                driver.manage().window().maximize();
+            } catch (RuntimeException e) {
+                // Nobody holds the session yet, so quitting it here is the only way it ends
+                try {
+                    quit(driver);
+                } catch (RuntimeException quitFailure) {
+                    e.addSuppressed(quitFailure);
+                }
+                throw e;
+            }
+        }
+        ReporterMetrics.DRIVER_START.recordSince(start);
+        return driver;
+    }
+
+    /**
+     * Ends a browser session, timing it in {@link ReporterMetrics#DRIVER_QUIT}, and deletes
+     * its copy of the template profile.
+     */
+    static void quit(WebDriver driver) {
+        long start = System.nanoTime();
+        try {
+            driver.quit();
+        } finally {
+            ReporterMetrics.DRIVER_QUIT.recordSince(start);
+            BrowserProfile.deleteUserData(userDataDirs.remove(driver));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.reporting;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded pool of browser sessions shared across test methods.
+ * <p>
+ * At most {@code driver.pool.size} sessions exist per browser and launch profile. A
+ * lease reuses an idle session when one is available and otherwise starts a new one;
+ * returning a session closes every window but the first, clears cookies and the storage of
+ * every origin (on Chromium; other drivers only reach the current origin) and parks it on
+ * {@code about:blank}. Sessions are quit instead of reused after
+ * {@code driver.pool.maxUses} leases, when the test failed with a WebDriver error, or when
+ * the reset itself fails.
+ */
+public final class DriverPool {
+    private static final ReporterLog LOG = ReporterLog.get("DriverPool");
+    private static volatile DriverPool shared;
+
+    private final int maxPerBrowser;
+    private final int maxUses;
+    private final Duration leaseTimeout;
+    private final Map<String, BlockingDeque<WebDriver>> idle = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final Map<WebDriver, Lease> leased = new ConcurrentHashMap<>();
+    private final Map<WebDriver, AtomicInteger> uses = new ConcurrentHashMap<>();
+
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private record Lease(String key) {
+    }
+
+    DriverPool(int maxPerBrowser, int maxUses, Duration leaseTimeout) {
+        this.maxPerBrowser = Math.max(1, maxPerBrowser);
+        this.maxUses = Math.max(1, maxUses);
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public static DriverPool shared() {
+        DriverPool instance = shared;
+        if (instance == null) {
+            synchronized (DriverPool.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new DriverPool(
+                            Integer.getInteger("driver.pool.size", Runtime.getRuntime().availableProcessors()),
+                            Integer.getInteger("driver.pool.maxUses", 20),
+                            Duration.ofSeconds(Long.getLong("driver.pool.leaseTimeoutSeconds", 300)));
+                    DriverPool hook = instance;
+                    Runtime.getRuntime().addShutdownHook(new Thread(hook::shutdown, "driver-pool-shutdown"));
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the shared pool if one was started, or {@code null}.
+     */
+    static DriverPool sharedIfStarted() {
+        return shared;
+    }
+
+    /**
+     * Returns a driver to the pool that leased it, or quits it if it was not pooled.
+     *
+     * @param healthy {@code false} to force the session to be discarded
+     */
+    public static void returnOrQuit(WebDriver driver, boolean healthy) {
+        DriverPool pool = shared;
+        if (pool != null && pool.leased.containsKey(driver)) {
+            pool.release(driver, healthy);
+        } else {
+            DriverFactory.quit(driver);
+        }
+    }
+
+    public WebDriver lease(String browser, BrowserProfile profile) {
+        String key = DriverFactory.browserKey(browser) + "|" + profile.key();
+        Semaphore slots = permits.computeIfAbsent(key, k -> new Semaphore(maxPerBrowser, true));
+        long start = System.nanoTime();
+        try {
+            if (!slots.tryAcquire(leaseTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Timed out waiting " + leaseTimeout + " for a " + key + " session");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a " + key + " session", e);
+        }
+        waitNanos.add(System.nanoTime() - start);
+        leases.increment();
+
+        try {
+            WebDriver driver = idle.computeIfAbsent(key, k -> new LinkedBlockingDeque<>()).pollFirst();
+            if (driver != null) {
+                hits.increment();
+            } else {
+                driver = DriverFactory.create(browser, profile);
+                created.increment();
+                uses.put(driver, new AtomicInteger());
+            }
+            uses.get(driver).incrementAndGet();
+            leased.put(driver, new Lease(key));
+            return driver;
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    public void release(WebDriver driver, boolean healthy) {
+        Lease lease = leased.remove(driver);
+        if (lease == null) {
+            DriverFactory.quit(driver);
+            return;
+        }
+        try {
+            AtomicInteger count = uses.get(driver);
+            if (healthy && count != null && count.get() < maxUses && reset(driver)) {
+                idle.get(lease.key()).offerFirst(driver);
+            } else {
+                discard(driver);
+            }
+        } finally {
+            permits.get(lease.key()).release();
+        }
+    }
+
+    private boolean reset(WebDriver driver) {
+        try {
+            // Windows and tabs the test opened would otherwise carry over to the next lease
+            Iterator<String> handles = driver.getWindowHandles().iterator();
+            if (!handles.hasNext()) return false;
+            String first = handles.next();
+            while (handles.hasNext()) {
+                driver.switchTo().window(handles.next()).close();
+            }
+            driver.switchTo().window(first);
+            driver.switchTo().defaultContent();
+            if (driver instanceof HasCdp) {
+                // Every origin the test visited, including IndexedDB, Cache Storage and service workers
+                ((HasCdp) driver).executeCdpCommand("Storage.clearDataForOrigin",
+                        Map.of("origin", "*", "storageTypes", "all"));
+                ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            } else {
+                // Without DevTools only the current origin's web storage can be reached
+                if (driver instanceof JavascriptExecutor) {
+                    ((JavascriptExecutor) driver).executeScript(
+                            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+                }
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            LOG.warn("Reset failed, recycling session: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void discard(WebDriver driver) {
+        uses.remove(driver);
+        recycled.increment();
+        try {
+            DriverFactory.quit(driver);
+        } catch (Exception e) {
+            LOG.warn("Failed to quit session: " + e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+        idle.values().forEach(queue -> {
+            WebDriver driver;
+            while ((driver = queue.pollFirst()) != null) {
+                try {
+                    DriverFactory.quit(driver);
+                } catch (Exception e) {
+                    LOG.warn("Failed to quit session: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Point-in-time pool statistics.
+     */
+    public Metrics metrics() {
+        long total = leases.sum();
+        return new Metrics(total, hits.sum(), created.sum(), recycled.sum(),
+                total == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()) / (double) total);
+    }
+
+    public record Metrics(long leases, long hits, long created, long recycled, double avgWaitMillis) {
+        public double hitRate() {
+            return leases == 0 ? 0 : (double) hits / leases;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("leases=%d, hits=%d (%.0f%%), created=%d, recycled=%d, avgWait=%.1fms",
+                    leases, hits, hitRate() * 100, created, recycled, avgWaitMillis);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.reporting;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-method test durations from earlier runs, kept in {@code -Dreporter.durations.file}
+ * (default {@code .test-durations.properties}, outside {@code target/} so {@code mvn clean}
+ * keeps it).
+ * <p>
+ * {@link ReporterListener} records what each method took and saves at the end of the
+ * suite; {@link DurationScheduler} reads the estimates back. Each save blends the new
+ * measurement with the stored one, so a single slow run does not reorder everything.
+ */
+final class DurationHistory {
+    private static final ReporterLog LOG = ReporterLog.get("DurationHistory");
+    // Weight of the latest run in the stored estimate
+    private static final double SMOOTHING = 0.5;
+    private static volatile DurationHistory shared;
+
+    private final Path file;
+    private final Map<String, Long> estimates = new ConcurrentHashMap<>();
+    private final Map<String, Long> measured = new ConcurrentHashMap<>();
+
+    DurationHistory(Path file) {
+        this.file = file;
+        load();
+    }
+
+    static DurationHistory shared() {
+        DurationHistory history = shared;
+        if (history == null) {
+            synchronized (DurationHistory.class) {
+                history = shared;
+                if (history == null) {
+                    history = new DurationHistory(Paths.get(System.getProperty("reporter.durations.file",
+                            ".test-durations.properties")));
+                    shared = history;
+                }
+            }
+        }
+        return history;
+    }
+
+    static String key(String className, String methodName) {
+        return className + "." + methodName;
+    }
+
+    /**
+     * Stored estimate in milliseconds, or -1 if the method has not run before.
+     */
+    long estimate(String key) {
+        return estimates.getOrDefault(key, -1L);
+    }
+
+    boolean isEmpty() {
+        return estimates.isEmpty();
+    }
+
+    void record(String key, long millis) {
+        // Invocations of one data-driven method add up
+        measured.merge(key, millis, Long::sum);
+    }
+
+    /**
+     * Writes the blended estimates; the file is replaced atomically so a concurrent
+     * reader never sees half of it.
+     */
+    synchronized void save() {
+        if (measured.isEmpty()) return;
+        measured.forEach((key, millis) -> estimates.merge(key, millis,
+                (old, latest) -> Math.round(old * (1 - SMOOTHING) + latest * SMOOTHING)));
+        measured.clear();
+        Properties properties = new Properties();
+        new TreeMap<>(estimates).forEach((key, millis) -> properties.setProperty(key, Long.toString(millis)));
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "test-durations", ".tmp");
+            try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                properties.store(out, "Test method durations in ms, written by ReporterListener");
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not save test durations to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) return;
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        } catch (IOException e) {
+            LOG.warn("Could not read test durations from " + file + ": " + e.getMessage());
+            return;
+        }
+        properties.forEach((key, value) -> {
+            try {
+                estimates.put((String) key, Long.parseLong(((String) value).trim()));
+            } catch (NumberFormatException e) {
+                // Skip a hand-edited or truncated entry
+            }
+        });
+    }
+}
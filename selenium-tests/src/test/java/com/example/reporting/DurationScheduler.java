@@ -0,0 +1,124 @@
+package com.example.reporting;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Orders each {@code <test>}'s methods longest-first using {@link DurationHistory} and,
+ * with {@code -Dshard=i/N}, keeps only the i-th of N balanced shards (1-based).
+ * <p>
+ * Starting the longest methods first keeps a slow test from landing last on an otherwise
+ * idle thread pool. Shards are made of whole classes, so class-level setup and
+ * {@code dependsOnMethods} stay on one node, and each class goes to the least-loaded
+ * shard. Nodes only agree on the split if they read the same durations file, so CI should
+ * share it between them; methods without history are estimated at the median of the rest
+ * (or {@code reporter.durations.defaultMs}, 1000).
+ */
+public class DurationScheduler implements IMethodInterceptor {
+    private static final ReporterLog LOG = ReporterLog.get("DurationScheduler");
+    private static final long DEFAULT_ESTIMATE_MS = Long.getLong("reporter.durations.defaultMs", 1000);
+
+    record Shard(int index, int count) {
+        static Shard parse(String spec) {
+            if (spec == null || spec.isBlank()) return null;
+            String[] parts = spec.trim().split("/");
+            try {
+                int index = Integer.parseInt(parts[0].trim());
+                int count = Integer.parseInt(parts[1].trim());
+                if (parts.length == 2 && count > 0 && index >= 1 && index <= count) {
+                    return new Shard(index, count);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // Reported below
+            }
+            LOG.warn("Ignoring -Dshard=" + spec + "; expected i/N with 1 <= i <= N");
+            return null;
+        }
+    }
+
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        DurationHistory history = DurationHistory.shared();
+        Map<IMethodInstance, Long> estimates = estimates(methods, history);
+
+        Shard shard = Shard.parse(System.getProperty("shard"));
+        List<IMethodInstance> selected = shard == null ? new ArrayList<>(methods) : select(methods, estimates, shard);
+        selected.sort(Comparator.comparingLong((IMethodInstance m) -> estimates.get(m)).reversed()
+                .thenComparing(m -> key(m.getMethod())));
+
+        long total = selected.stream().mapToLong(estimates::get).sum();
+        LOG.info(context.getName() + ": " + selected.size() + " of " + methods.size() + " methods"
+                + (shard != null ? " in shard " + shard.index() + "/" + shard.count() : "")
+                + ", ~" + total / 1000 + "s" + (history.isEmpty() ? " (no duration history yet)" : ""));
+        return selected;
+    }
+
+    private static Map<IMethodInstance, Long> estimates(List<IMethodInstance> methods, DurationHistory history) {
+        Map<IMethodInstance, Long> estimates = new IdentityHashMap<>();
+        List<Long> known = new ArrayList<>();
+        for (IMethodInstance method : methods) {
+            long estimate = history.estimate(key(method.getMethod()));
+            estimates.put(method, estimate);
+            if (estimate >= 0) known.add(estimate);
+        }
+        known.sort(null);
+        long fallback = known.isEmpty() ? DEFAULT_ESTIMATE_MS : known.get(known.size() / 2);
+        estimates.replaceAll((method, estimate) -> estimate >= 0 ? estimate : fallback);
+        return estimates;
+    }
+
+    private static List<IMethodInstance> select(List<IMethodInstance> methods, Map<IMethodInstance, Long> estimates,
+                                                Shard shard) {
+        Map<String, List<IMethodInstance>> byClass = new LinkedHashMap<>();
+        Map<String, Long> classEstimates = new LinkedHashMap<>();
+        for (IMethodInstance method : methods) {
+            String className = method.getMethod().getTestClass().getName();
+            byClass.computeIfAbsent(className, k -> new ArrayList<>()).add(method);
+            classEstimates.merge(className, estimates.get(method), Long::sum);
+        }
+        Map<String, Integer> shards = split(classEstimates, shard.count());
+        List<IMethodInstance> selected = new ArrayList<>();
+        byClass.forEach((className, classMethods) -> {
+            if (shards.get(className) == shard.index() - 1) selected.addAll(classMethods);
+        });
+        return selected;
+    }
+
+    /**
+     * Assigns each class to one of {@code count} shards (0-based), longest-processing-time-first:
+     * classes are taken longest first and each goes to the least-loaded shard. Deterministic
+     * for the same estimates, whatever their iteration order.
+     */
+    static Map<String, Integer> split(Map<String, Long> classEstimates, int count) {
+        Set<String> ordered = new TreeSet<>(Comparator.comparingLong((String c) -> classEstimates.get(c)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        ordered.addAll(classEstimates.keySet());
+
+        long[] load = new long[count];
+        Map<String, Integer> shards = new LinkedHashMap<>();
+        for (String className : ordered) {
+            int target = 0;
+            for (int i = 1; i < load.length; i++) {
+                if (load[i] < load[target]) target = i;
+            }
+            load[target] += classEstimates.get(className);
+            shards.put(className, target);
+        }
+        return shards;
+    }
+
+    static String key(ITestNGMethod method) {
+        return DurationHistory.key(method.getTestClass().getName(), method.getMethodName());
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.reporting;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DurationSchedulerTests {
+
+    @Test
+    public void parsesAOneBasedShard() {
+        Assert.assertEquals(DurationScheduler.Shard.parse("2/3"), new DurationScheduler.Shard(2, 3));
+        Assert.assertEquals(DurationScheduler.Shard.parse(" 1 / 1 "), new DurationScheduler.Shard(1, 1));
+    }
+
+    @Test
+    public void ignoresAMissingOrMalformedShard() {
+        for (String spec : new String[] {null, "", "  ", "3", "0/2", "3/2", "1/0", "-1/2", "a/b", "1/2/3"}) {
+            Assert.assertNull(DurationScheduler.Shard.parse(spec), spec);
+        }
+    }
+
+    @Test
+    public void placesEachClassOnTheLeastLoadedShardLongestFirst() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        estimates.put("E", 1L);
+        estimates.put("C", 4L);
+        estimates.put("A", 7L);
+        estimates.put("D", 3L);
+        estimates.put("B", 5L);
+
+        Map<String, Integer> shards = DurationScheduler.split(estimates, 2);
+
+        // A=7 | B=5, C=4 -> 9 | D=3 -> 10 | E=1 -> 10
+        Assert.assertEquals(shards, Map.of("A", 0, "B", 1, "C", 1, "D", 0, "E", 1));
+        Assert.assertEquals(load(shards, estimates, 0), 10);
+        Assert.assertEquals(load(shards, estimates, 1), 10);
+    }
+
+    @Test
+    public void splitsTheSameWayWhateverTheClassOrder() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            estimates.put("Class" + i, (long) (i % 4) * 1000);
+        }
+        Map<String, Integer> expected = DurationScheduler.split(estimates, 3);
+
+        List<String> names = new ArrayList<>(estimates.keySet());
+        Collections.reverse(names);
+        Map<String, Long> reversed = new LinkedHashMap<>();
+        names.forEach(name -> reversed.put(name, estimates.get(name)));
+
+        Assert.assertEquals(DurationScheduler.split(reversed, 3), expected);
+    }
+
+    @Test
+    public void assignsEveryClassToExactlyOneShard() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (int i = 0; i < 7; i++) {
+            estimates.put("Class" + i, 100L * (i + 1));
+        }
+
+        Map<String, Integer> shards = DurationScheduler.split(estimates, 4);
+
+        Assert.assertEquals(shards.keySet(), estimates.keySet());
+        shards.values().forEach(shard -> Assert.assertTrue(shard >= 0 && shard < 4, "shard " + shard));
+        Assert.assertEquals(DurationScheduler.split(estimates, 1).values().stream().distinct().toList(), List.of(0));
+    }
+
+    @Test
+    public void leavesExtraShardsEmptyWhenThereAreFewerClasses() {
+        Map<String, Integer> shards = DurationScheduler.split(Map.of("A", 5L, "B", 5L), 4);
+
+        Assert.assertEquals(shards, Map.of("A", 0, "B", 1));
+    }
+
+    private static long load(Map<String, Integer> shards, Map<String, Long> estimates, int shard) {
+        return shards.entrySet().stream()
+                .filter(entry -> entry.getValue() == shard)
+                .mapToLong(entry -> estimates.get(entry.getKey()))
+                .sum();
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.reporting;
+
+import com.google.gson.Gson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of reporter events.
+ * <p>
+ * Every event is appended as {@code [length][crc32][json]} before it is queued for
+ * sending, and acknowledged once the backend has accepted it. The acknowledged offset
+ * is the start of the oldest event still outstanding, persisted next to the log, so a
+ * JVM that dies mid-run leaves behind every event that was never delivered and
+ * {@link #open} reads them back on the next start, before anything new is appended after
+ * them; {@link #recover()} hands them out. Delivery is at-least-once:
+ * events acknowledged after an older, still pending one are replayed as well.
+ * {@code fsync} is batched: the
+ * log is forced every {@code syncEvery} appends and on every {@link #sync()} call.
+ * When nothing is outstanding the log is truncated back to zero.
+ */
+final class EventSpool implements Closeable {
+    private static final int HEADER_BYTES = 8;
+
+    private final FileChannel log;
+    private final FileChannel ack;
+    private final FileLock lock;
+    private final int syncEvery;
+    private final Gson gson = new Gson();
+    private final NavigableMap<Long, Long> outstanding = new TreeMap<>();
+    private long writePosition;
+    private long ackedOffset;
+    private long persistedAck = -1;
+    private int unsynced;
+    private List<ReporterEvent> recovered = List.of();
+
+    private EventSpool(FileChannel log, FileChannel ack, FileLock lock, int syncEvery) {
+        this.log = log;
+        this.ack = ack;
+        this.lock = lock;
+        this.syncEvery = Math.max(1, syncEvery);
+    }
+
+    /**
+     * Opens the spool in {@code dir} and reads back what an earlier process left in it, so
+     * new events are appended after those instead of over them.
+     *
+     * @throws IOException if the files cannot be opened or another JVM holds the spool
+     */
+    static EventSpool open(Path dir, int syncEvery) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel log = FileChannel.open(dir.resolve("events.log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = log.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by this JVM already
+            lock = null;
+        }
+        if (lock == null) {
+            log.close();
+            throw new IOException("Spool " + dir + " is in use by another process");
+        }
+        EventSpool spool = null;
+        try {
+            FileChannel ack = FileChannel.open(dir.resolve("events.ack"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            spool = new EventSpool(log, ack, lock, syncEvery);
+            spool.recovered = spool.scan();
+            return spool;
+        } catch (IOException | RuntimeException e) {
+            if (spool != null) spool.ack.close();
+            lock.release();
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the events an earlier process appended but never had acknowledged, once;
+     * later calls return an empty list. They count as outstanding again.
+     */
+    synchronized List<ReporterEvent> recover() {
+        List<ReporterEvent> events = recovered;
+        recovered = List.of();
+        return events;
+    }
+
+    // Reads back every unacknowledged event, truncating a torn record at the tail
+    private List<ReporterEvent> scan() throws IOException {
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+        long position = ack.read(offset, 0) == Long.BYTES ? offset.flip().getLong() : 0;
+        long size = log.size();
+        // An offset past the end means the log was compacted before the offset was reset
+        if (position > size) position = 0;
+        List<ReporterEvent> events = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            log.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || position + HEADER_BYTES + length > size) break;
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            log.read(payload, position + HEADER_BYTES);
+            if (crc(payload.array()) != checksum) break;
+            long end = position + HEADER_BYTES + length;
+            ReporterEvent event = gson.fromJson(new String(payload.array(), StandardCharsets.UTF_8), ReporterEvent.class);
+            events.add(event.withSpoolOffset(position));
+            outstanding.put(position, end);
+            position = end;
+        }
+        log.truncate(position);
+        writePosition = position;
+        ackedOffset = outstanding.isEmpty() ? position : outstanding.firstKey();
+        compactIfIdle();
+        return events;
+    }
+
+    /**
+     * Appends an event and returns its offset, which is later passed to {@link #ack}.
+     */
+    synchronized long append(ReporterEvent event) throws IOException {
+        byte[] payload = gson.toJson(event).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(crc(payload)).put(payload).flip();
+        long start = writePosition;
+        while (record.hasRemaining()) {
+            writePosition += log.write(record, writePosition);
+        }
+        outstanding.put(start, writePosition);
+        if (++unsynced >= syncEvery) {
+            log.force(false);
+            unsynced = 0;
+        }
+        return start;
+    }
+
+    synchronized void ack(long offset) {
+        if (offset < 0 || outstanding.remove(offset) == null) return;
+        ackedOffset = outstanding.isEmpty() ? writePosition : outstanding.firstKey();
+    }
+
+    synchronized int outstanding() {
+        return outstanding.size();
+    }
+
+    /**
+     * Forces appended records to disk and persists the acknowledged offset.
+     */
+    synchronized void sync() throws IOException {
+        if (unsynced > 0) {
+            log.force(false);
+            unsynced = 0;
+        }
+        if (!compactIfIdle() && ackedOffset != persistedAck) {
+            writeAck(ackedOffset);
+        }
+    }
+
+    private boolean compactIfIdle() throws IOException {
+        if (!outstanding.isEmpty() || writePosition == 0) return false;
+        // Truncate before resetting the offset so a crash in between never replays acknowledged events
+        log.truncate(0);
+        writeAck(0);
+        writePosition = 0;
+        ackedOffset = 0;
+        return true;
+    }
+
+    private void writeAck(long offset) throws IOException {
+        ack.write(ByteBuffer.allocate(Long.BYTES).putLong(0, offset), 0);
+        ack.force(false);
+        persistedAck = offset;
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        lock.release();
+        log.close();
+        ack.close();
+    }
+}
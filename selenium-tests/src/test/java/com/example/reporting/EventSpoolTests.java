@@ -0,0 +1,134 @@
+package com.example.reporting;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class EventSpoolTests {
+    private Path dir;
+
+    @BeforeMethod
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("spool-test-");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static ReporterEvent event(String body) {
+        return new ReporterEvent(ReporterEvent.STEP, "run", "tc", "http://localhost", "/step", body);
+    }
+
+    private static List<String> bodies(List<ReporterEvent> events) {
+        return events.stream().map(ReporterEvent::body).toList();
+    }
+
+    @Test
+    public void recoversOnlyWhatAnEarlierProcessLeftUnacknowledged() throws IOException {
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            long first = spool.append(event("{\"n\":1}"));
+            spool.append(event("{\"n\":2}"));
+            spool.ack(first);
+        }
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            // Appended after reopening; must neither overwrite the leftover record nor be recovered
+            long offset = spool.append(event("{\"n\":3}"));
+            List<ReporterEvent> recovered = spool.recover();
+            Assert.assertEquals(bodies(recovered), List.of("{\"n\":2}"));
+            Assert.assertTrue(offset > recovered.get(0).spoolOffset(), "new record written over the old one");
+            Assert.assertEquals(spool.outstanding(), 2);
+            Assert.assertTrue(spool.recover().isEmpty(), "recovered events are handed out once");
+        }
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            Assert.assertEquals(bodies(spool.recover()), List.of("{\"n\":2}", "{\"n\":3}"));
+        }
+    }
+
+    @Test
+    public void truncatesATornTailRecord() throws IOException {
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            spool.append(event("{\"n\":1}"));
+        }
+        Path log = dir.resolve("events.log");
+        long intact = Files.size(log);
+        // A header promising more bytes than were written, as a crash mid-append leaves it
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(12).putInt(100).putInt(0).putInt(0x7b7b7b7b).flip());
+        }
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            Assert.assertEquals(bodies(spool.recover()), List.of("{\"n\":1}"));
+            Assert.assertEquals(Files.size(log), intact);
+            long offset = spool.append(event("{\"n\":2}"));
+            Assert.assertEquals(offset, intact);
+        }
+    }
+
+    @Test
+    public void stopsAtARecordWithABadChecksum() throws IOException {
+        long second;
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            spool.append(event("{\"n\":1}"));
+            second = spool.append(event("{\"n\":2}"));
+        }
+        try (FileChannel channel = FileChannel.open(dir.resolve("events.log"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), second + 8);
+        }
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            Assert.assertEquals(bodies(spool.recover()), List.of("{\"n\":1}"));
+            Assert.assertEquals(Files.size(dir.resolve("events.log")), second);
+        }
+    }
+
+    @Test
+    public void compactsOnceEverythingIsAcknowledged() throws IOException {
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            long first = spool.append(event("{\"n\":1}"));
+            long second = spool.append(event("{\"n\":2}"));
+            spool.ack(second);
+            spool.sync();
+            Assert.assertTrue(Files.size(dir.resolve("events.log")) > 0, "compacted with an event outstanding");
+            spool.ack(first);
+            spool.sync();
+            Assert.assertEquals(Files.size(dir.resolve("events.log")), 0L);
+            Assert.assertEquals(spool.append(event("{\"n\":3}")), 0L);
+        }
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            Assert.assertEquals(bodies(spool.recover()), List.of("{\"n\":3}"));
+        }
+    }
+
+    @Test
+    public void replaysEverythingFromTheOldestOutstandingEvent() throws IOException {
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            spool.append(event("{\"n\":1}"));
+            long second = spool.append(event("{\"n\":2}"));
+            spool.ack(second);
+        }
+        // At-least-once: the acknowledged second event sits after the pending first one
+        try (EventSpool spool = EventSpool.open(dir, 1)) {
+            Assert.assertEquals(bodies(spool.recover()), List.of("{\"n\":1}", "{\"n\":2}"));
+        }
+    }
+
+    @Test
+    public void refusesASpoolHeldByAnotherOpener() throws IOException {
+        try (EventSpool ignored = EventSpool.open(dir, 1)) {
+            Assert.expectThrows(IOException.class, () -> EventSpool.open(dir, 1));
+        }
+    }
+}
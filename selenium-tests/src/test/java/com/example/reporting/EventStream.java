@@ -0,0 +1,212 @@
+package com.example.reporting;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * One segment of a run's event stream: a single chunked {@code POST
+ * /api/executions/runs/:runId/stream} whose body is written one NDJSON line per event
+ * while the segment is open.
+ * <p>
+ * The backend applies lines as they arrive and relays them to live viewers, but
+ * {@code java.net.http} only reads an HTTP/1.1 response once the request body is
+ * complete, so acknowledgement comes per segment: closing it ends the body and the
+ * response reports how many leading lines were applied.
+ */
+final class EventStream {
+    private final String baseUrl;
+    private final String runId;
+    private final ChunkPublisher body = new ChunkPublisher();
+    private final List<ReporterEvent> events = new ArrayList<>();
+    private final long openedAt = System.nanoTime();
+    private long lastWrite = openedAt;
+    // The whole segment is one gzip member when compression is on
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    private final GZIPOutputStream gzip;
+
+    EventStream(String baseUrl, String runId) {
+        this.baseUrl = baseUrl;
+        this.runId = runId;
+        try {
+            this.gzip = RequestCompression.ENABLED ? new GZIPOutputStream(compressed, true) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts the upload; lines written before or after this are sent in order.
+     */
+    CompletableFuture<ResilientSender.Result<String>> send(ResilientSender sender, Duration timeout) {
+        HttpRequest.Builder builder = CanonicalIds.mark(sender.transport()
+                .request(URI.create(baseUrl + "/api/executions/runs/" + runId + "/stream")), runId)
+                .header("Content-Type", "application/x-ndjson")
+                .header("Authorization", TokenProvider.authorizationFor(baseUrl))
+                .timeout(timeout);
+        if (gzip != null) builder.header("Content-Encoding", "gzip");
+        HttpRequest request = builder.POST(HttpRequest.BodyPublishers.fromPublisher(body)).build();
+        return sender.sendOnce(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    void write(ReporterEvent event, String line) {
+        events.add(event);
+        lastWrite = System.nanoTime();
+        byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        if (gzip == null) {
+            ReporterMetrics.BYTES_SENT.add(bytes.length);
+            body.offer(ByteBuffer.wrap(bytes));
+            return;
+        }
+        try {
+            // A sync flush hands the line to the server now while keeping one dictionary for the segment
+            gzip.write(bytes);
+            gzip.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        offerCompressed();
+    }
+
+    void close() {
+        if (gzip != null) {
+            try {
+                gzip.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            offerCompressed();
+        }
+        body.close();
+    }
+
+    private void offerCompressed() {
+        if (compressed.size() == 0) return;
+        ReporterMetrics.BYTES_SENT.add(compressed.size());
+        body.offer(ByteBuffer.wrap(compressed.toByteArray()));
+        compressed.reset();
+    }
+
+    List<ReporterEvent> events() {
+        return events;
+    }
+
+    int size() {
+        return events.size();
+    }
+
+    long openedAt() {
+        return openedAt;
+    }
+
+    long lastWrite() {
+        return lastWrite;
+    }
+
+    /**
+     * Number of leading events the server reported as applied, 0 if the body says nothing.
+     */
+    static int applied(ResilientSender.Result<String> result) {
+        if (result.response() == null) return 0;
+        try {
+            JsonObject body = JsonParser.parseString(result.response().body()).getAsJsonObject();
+            return body.has("applied") ? body.get("applied").getAsInt() : 0;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Single-subscriber publisher fed by the sender thread; buffers until the HTTP
+     * client subscribes and honours its demand.
+     */
+    private static final class ChunkPublisher implements Flow.Publisher<ByteBuffer> {
+        private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Flow.Subscriber<? super ByteBuffer> subscriber;
+        private volatile boolean closed;
+        private volatile boolean cancelled;
+        private boolean completed;
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> s) {
+            synchronized (this) {
+                if (subscriber != null) {
+                    s.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                        }
+
+                        @Override
+                        public void cancel() {
+                        }
+                    });
+                    s.onError(new IllegalStateException("Stream body can only be sent once"));
+                    return;
+                }
+                subscriber = s;
+            }
+            s.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    demand.accumulateAndGet(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+                    drain();
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                    queue.clear();
+                }
+            });
+            drain();
+        }
+
+        void offer(ByteBuffer chunk) {
+            if (cancelled) return;
+            queue.add(chunk);
+            drain();
+        }
+
+        void close() {
+            closed = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) return;
+            do {
+                Flow.Subscriber<? super ByteBuffer> s = subscriber;
+                if (s != null && !cancelled && !completed) {
+                    while (demand.get() > 0 && !queue.isEmpty()) {
+                        demand.decrementAndGet();
+                        s.onNext(queue.poll());
+                    }
+                    if (closed && queue.isEmpty()) {
+                        completed = true;
+                        s.onComplete();
+                    }
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.reporting;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A stable identity for a test failure, so identical failures can be reported and grouped once.
+ * <p>
+ * The signature is each exception's type and normalized first message line plus its top
+ * {@code reporter.fingerprint.frames} (5) frames without line numbers, down the cause chain.
+ * Session IDs, hex addresses, UUIDs and other numbers are masked, and generated lambda and
+ * proxy names are collapsed, so reruns of the same failure on a new browser session match.
+ * {@code headline} is the failure's own first line, unmasked, for display next to the shared trace.
+ */
+record FailureFingerprint(String id, String headline) {
+    private static final int FRAMES = Integer.getInteger("reporter.fingerprint.frames", 5);
+    private static final int MAX_CAUSES = 5;
+    private static final int MAX_HEADLINE = 500;
+    private static final Pattern SESSION_ID = Pattern.compile("(?i)session ?id:? *\\S+");
+    private static final Pattern UUID = Pattern.compile("(?i)\\b[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}\\b");
+    private static final Pattern HEX = Pattern.compile("(?i)\\b(0x)?[0-9a-f]*[0-9][0-9a-f]*\\b");
+    private static final Pattern GENERATED = Pattern.compile("(?<=\\$|\\$Proxy)\\d+|/0x[0-9a-f]+");
+
+    static FailureFingerprint of(Throwable error) {
+        if (error == null) return new FailureFingerprint("unknown", "Test failed without an exception");
+        StringBuilder signature = new StringBuilder(512);
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSES && seen.add(current); depth++) {
+            signature.append(current.getClass().getName()).append(": ").append(mask(firstLine(current.getMessage())));
+            StackTraceElement[] frames = current.getStackTrace();
+            for (int i = 0; i < Math.min(FRAMES, frames.length); i++) {
+                signature.append("\n at ")
+                        .append(generated(frames[i].getClassName()))
+                        .append('.')
+                        .append(generated(frames[i].getMethodName()));
+            }
+            signature.append('\n');
+            current = current.getCause();
+        }
+        String id = ArtifactUploader.sha256(signature.toString().getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+        String headline = error.getClass().getName() + (error.getMessage() != null ? ": " + firstLine(error.getMessage()) : "");
+        return new FailureFingerprint(id, headline.length() > MAX_HEADLINE ? headline.substring(0, MAX_HEADLINE) : headline);
+    }
+
+    /**
+     * The full {@code printStackTrace} text; only built for the first occurrence of a fingerprint.
+     */
+    static String trace(Throwable error) {
+        if (error == null) return null;
+        StringWriter trace = new StringWriter(4096);
+        error.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) return "";
+        int end = message.indexOf('\n');
+        return (end < 0 ? message : message.substring(0, end)).trim();
+    }
+
+    // Session IDs first, since they are often all hex and would otherwise only be half masked
+    private static String mask(String message) {
+        String masked = SESSION_ID.matcher(message).replaceAll("session id");
+        masked = UUID.matcher(masked).replaceAll("#");
+        return HEX.matcher(masked).replaceAll("#");
+    }
+
+    private static String generated(String name) {
+        return GENERATED.matcher(name).replaceAll("#");
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.reporting;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class FailureFingerprintTests {
+
+    @Test
+    public void matchesReRunsOnANewSessionAndAddresses() {
+        String first = FailureFingerprint.of(failure("no such element: #login; Session ID: 9f2c4e1a77b04c3d"
+                + " at 0x7ffd4a2c, request 3c9a1f7e-5b2d-4e8a-9c1f-0a2b3c4d5e6f took 1532 ms")).id();
+        String rerun = FailureFingerprint.of(failure("no such element: #login; Session ID: 01ab23cd45ef6789"
+                + " at 0x10b2e8f0, request 7d1e2f3a-4b5c-6d7e-8f90-a1b2c3d4e5f6 took 87 ms")).id();
+
+        Assert.assertEquals(rerun, first);
+    }
+
+    @Test
+    public void tellsDifferentMessagesAndTypesApart() {
+        String timeout = FailureFingerprint.of(failure("timed out waiting for #login")).id();
+
+        Assert.assertNotEquals(FailureFingerprint.of(failure("timed out waiting for #logout")).id(), timeout);
+        Assert.assertNotEquals(FailureFingerprint.of(withFrames(new IllegalStateException("timed out waiting for #login"),
+                frame("com.example.tests.LoginTest", "login", 42))).id(), timeout);
+    }
+
+    @Test
+    public void ignoresEverythingAfterTheFirstMessageLine() {
+        Assert.assertEquals(FailureFingerprint.of(failure("expected true\nbut was false (build 1234)")).id(),
+                FailureFingerprint.of(failure("expected true\nBuild info: host 'ci-7'")).id());
+    }
+
+    @Test
+    public void ignoresLineNumbersButNotMethods() {
+        String id = FailureFingerprint.of(withFrames(new AssertionError("boom"),
+                frame("com.example.tests.LoginTest", "login", 42))).id();
+
+        Assert.assertEquals(FailureFingerprint.of(withFrames(new AssertionError("boom"),
+                frame("com.example.tests.LoginTest", "login", 57))).id(), id);
+        Assert.assertNotEquals(FailureFingerprint.of(withFrames(new AssertionError("boom"),
+                frame("com.example.tests.LoginTest", "logout", 42))).id(), id);
+    }
+
+    @Test
+    public void collapsesGeneratedLambdaAndProxyNames() {
+        String id = FailureFingerprint.of(withFrames(new AssertionError("boom"),
+                frame("com.example.tests.LoginTest$$Lambda$123/0x0000000800c4b440", "apply", 1),
+                frame("jdk.proxy2.$Proxy17", "findElement", -1))).id();
+
+        Assert.assertEquals(FailureFingerprint.of(withFrames(new AssertionError("boom"),
+                frame("com.example.tests.LoginTest$$Lambda$456/0x0000000801a2f000", "apply", 1),
+                frame("jdk.proxy2.$Proxy23", "findElement", -1))).id(), id);
+    }
+
+    @Test
+    public void includesTheCauseChain() {
+        RuntimeException first = withFrames(new RuntimeException("step failed"), frame("a.B", "c", 1));
+        first.initCause(withFrames(new IllegalStateException("stale element"), frame("d.E", "f", 1)));
+        RuntimeException second = withFrames(new RuntimeException("step failed"), frame("a.B", "c", 1));
+        second.initCause(withFrames(new IllegalStateException("detached frame"), frame("d.E", "f", 1)));
+
+        Assert.assertNotEquals(FailureFingerprint.of(second).id(), FailureFingerprint.of(first).id());
+    }
+
+    @Test
+    public void stopsAtACycleInTheCauseChain() {
+        RuntimeException outer = withFrames(new RuntimeException("outer"), frame("a.B", "c", 1));
+        RuntimeException inner = withFrames(new RuntimeException("inner"), frame("d.E", "f", 1));
+        outer.initCause(inner);
+        inner.initCause(outer);
+
+        Assert.assertEquals(FailureFingerprint.of(outer).id().length(), 16);
+    }
+
+    @Test
+    public void keepsTheHeadlineUnmaskedAndBounded() {
+        FailureFingerprint fingerprint = FailureFingerprint.of(failure("took 1532 ms\nsecond line"));
+        Assert.assertEquals(fingerprint.headline(), "java.lang.AssertionError: took 1532 ms");
+
+        Assert.assertEquals(FailureFingerprint.of(failure("x".repeat(2000))).headline().length(), 500);
+        Assert.assertEquals(FailureFingerprint.of(withFrames(new NullPointerException(), frame("a.B", "c", 1))).headline(),
+                "java.lang.NullPointerException");
+    }
+
+    @Test
+    public void describesAFailureWithoutAnException() {
+        Assert.assertEquals(FailureFingerprint.of(null).id(), "unknown");
+        Assert.assertNull(FailureFingerprint.trace(null));
+    }
+
+    private static AssertionError failure(String message) {
+        return withFrames(new AssertionError(message), frame("com.example.tests.LoginTest", "login", 42));
+    }
+
+    private static <T extends Throwable> T withFrames(T error, StackTraceElement... frames) {
+        error.setStackTrace(frames);
+        return error;
+    }
+
+    private static StackTraceElement frame(String className, String method, int line) {
+        return new StackTraceElement(className, method, "Source.java", line);
+    }
+}
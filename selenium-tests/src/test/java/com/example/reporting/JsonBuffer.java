@@ -0,0 +1,234 @@
+package com.example.reporting;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Growable UTF-8 byte buffer with a minimal streaming JSON encoder on top.
+ * <p>
+ * Each thread reuses its own buffers, so encoding an event allocates nothing once the
+ * buffer has grown to the largest body seen. The contents are only valid until the
+ * owning thread's next {@link #forBody()} / {@link #forLog()} call; copy them with
+ * {@link #toString()} if they must outlive that.
+ */
+final class JsonBuffer {
+    private static final int INITIAL_CAPACITY = 4096;
+    // A single full-page screenshot can push the buffer to megabytes; don't pin that per thread
+    private static final int RETAINED_CAPACITY = 256 * 1024;
+    private static final int MAX_DEPTH = 8;
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<JsonBuffer> BODY = ThreadLocal.withInitial(JsonBuffer::new);
+    private static final ThreadLocal<JsonBuffer> LOG = ThreadLocal.withInitial(JsonBuffer::new);
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+    // Whether the container at each depth still awaits its first element
+    private final boolean[] empty = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Returns the calling thread's request-body buffer, cleared.
+     */
+    static JsonBuffer forBody() {
+        return BODY.get().reset();
+    }
+
+    /**
+     * Returns the calling thread's log buffer, cleared; independent of the body buffer.
+     */
+    static JsonBuffer forLog() {
+        return LOG.get().reset();
+    }
+
+    JsonBuffer reset() {
+        if (bytes.length > RETAINED_CAPACITY) bytes = new byte[INITIAL_CAPACITY];
+        size = 0;
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    JsonBuffer beginObject() {
+        return open((byte) '{');
+    }
+
+    JsonBuffer endObject() {
+        return close((byte) '}');
+    }
+
+    JsonBuffer beginArray() {
+        return open((byte) '[');
+    }
+
+    JsonBuffer endArray() {
+        return close((byte) ']');
+    }
+
+    JsonBuffer name(String name) {
+        separate();
+        writeString(name);
+        put((byte) ':');
+        afterName = true;
+        return this;
+    }
+
+    JsonBuffer value(String value) {
+        separate();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    JsonBuffer value(long value) {
+        separate();
+        writeAscii(Long.toString(value));
+        return this;
+    }
+
+    JsonBuffer field(String name, long value) {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes {@code "name":"value"}, or nothing when the value is {@code null}.
+     */
+    JsonBuffer field(String name, String value) {
+        return value == null ? this : name(name).value(value);
+    }
+
+    JsonBuffer field(String name, List<String> values) {
+        if (values == null) return this;
+        name(name).beginArray();
+        for (int i = 0; i < values.size(); i++) {
+            value(values.get(i));
+        }
+        return endArray();
+    }
+
+    private JsonBuffer open(byte bracket) {
+        separate();
+        put(bracket);
+        if (depth == MAX_DEPTH) throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH);
+        empty[depth++] = true;
+        return this;
+    }
+
+    private JsonBuffer close(byte bracket) {
+        depth--;
+        put(bracket);
+        return this;
+    }
+
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            if (empty[depth - 1]) {
+                empty[depth - 1] = false;
+            } else {
+                put((byte) ',');
+            }
+        }
+    }
+
+    private void writeAscii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            bytes[size++] = (byte) s.charAt(i);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void writeString(String s) {
+        int length = s.length();
+        // Grow once for the common case; escapes and multi-byte chars grow on demand
+        ensure(length + 2);
+        bytes[size++] = '"';
+        int plain = 0;
+        while (plain < length && isPlainAscii(s.charAt(plain))) {
+            plain++;
+        }
+        // Base64 screenshots are all plain ASCII; this copy is an intrinsic, not a per-char loop
+        s.getBytes(0, plain, bytes, size);
+        size += plain;
+        for (int i = plain; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    put((byte) '\\');
+                    put((byte) c);
+                } else if (c < 0x20) {
+                    escapeControl(c);
+                } else {
+                    put((byte) c);
+                }
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | c >> 6));
+                put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                put((byte) (0xF0 | cp >> 18));
+                put((byte) (0x80 | cp >> 12 & 0x3F));
+                put((byte) (0x80 | cp >> 6 & 0x3F));
+                put((byte) (0x80 | cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                put((byte) '?');
+            } else {
+                put((byte) (0xE0 | c >> 12));
+                put((byte) (0x80 | c >> 6 & 0x3F));
+                put((byte) (0x80 | c & 0x3F));
+            }
+        }
+        put((byte) '"');
+    }
+
+    private static boolean isPlainAscii(char c) {
+        return c >= 0x20 && c < 0x80 && c != '"' && c != '\\';
+    }
+
+    private void escapeControl(char c) {
+        switch (c) {
+            case '\n' -> writeAscii("\\n");
+            case '\r' -> writeAscii("\\r");
+            case '\t' -> writeAscii("\\t");
+            case '\b' -> writeAscii("\\b");
+            case '\f' -> writeAscii("\\f");
+            default -> {
+                writeAscii("\\u00");
+                put(HEX[c >> 4]);
+                put(HEX[c & 0xF]);
+            }
+        }
+    }
+
+    private void put(byte b) {
+        if (size == bytes.length) ensure(1);
+        bytes[size++] = b;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            byte[] grown = new byte[Math.max(bytes.length * 2, size + extra)];
+            System.arraycopy(bytes, 0, grown, 0, size);
+            bytes = grown;
+        }
+    }
+}
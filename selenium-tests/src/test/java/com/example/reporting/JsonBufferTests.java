@@ -0,0 +1,103 @@
+package com.example.reporting;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+public class JsonBufferTests {
+
+    @Test
+    public void writesNestedObjectsAndArraysWithSeparators() {
+        String json = new JsonBuffer()
+                .beginObject()
+                .field("name", "login")
+                .field("count", 3)
+                .field("tags", List.of("smoke", "ui"))
+                .name("empty").beginArray().endArray()
+                .name("nested").beginObject().field("a", 1).endObject()
+                .endObject()
+                .toString();
+
+        Assert.assertEquals(json, "{\"name\":\"login\",\"count\":3,\"tags\":[\"smoke\",\"ui\"],\"empty\":[],"
+                + "\"nested\":{\"a\":1}}");
+    }
+
+    @Test
+    public void omitsNullFieldsButWritesNullValues() {
+        String json = new JsonBuffer()
+                .beginObject()
+                .field("screenshot", (String) null)
+                .field("tags", (List<String>) null)
+                .name("error").value((String) null)
+                .endObject()
+                .toString();
+
+        Assert.assertEquals(json, "{\"error\":null}");
+    }
+
+    @Test
+    public void escapesQuotesBackslashesAndControlCharacters() {
+        String value = "say \"hi\" \\ path\n\r\t\b\f\u0000\u001f end";
+
+        Assert.assertEquals(encode(value), "\"say \\\"hi\\\" \\\\ path\\n\\r\\t\\b\\f\\u0000\\u001f end\"");
+        Assert.assertEquals(roundTrip(value), value);
+    }
+
+    @Test
+    public void encodesNonAsciiAsUtf8() {
+        String value = "café € 😀 中";
+
+        Assert.assertEquals(roundTrip(value), value);
+        Assert.assertEquals(new JsonBuffer().value("é€😀").size(), 2 + 2 + 3 + 4);
+    }
+
+    @Test
+    public void replacesUnpairedSurrogates() {
+        Assert.assertEquals(roundTrip("a\uD83Db"), "a?b");
+        Assert.assertEquals(roundTrip("a\uDE00"), "a?");
+    }
+
+    @Test
+    public void growsPastItsInitialCapacityAndShrinksOnReset() {
+        String large = "A".repeat(300 * 1024) + "é";
+        JsonBuffer buffer = new JsonBuffer();
+
+        Assert.assertEquals(roundTrip(buffer, large), large);
+        Assert.assertTrue(buffer.array().length > 256 * 1024);
+        Assert.assertEquals(buffer.reset().size(), 0);
+        Assert.assertEquals(buffer.array().length, 4096);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void rejectsNestingDeeperThanItTracks() {
+        JsonBuffer buffer = new JsonBuffer();
+        for (int i = 0; i < 9; i++) {
+            buffer.beginArray();
+        }
+    }
+
+    @Test
+    public void keepsTheBodyAndLogBuffersApart() {
+        JsonBuffer body = JsonBuffer.forBody().beginObject().field("a", 1);
+        JsonBuffer.forLog().beginObject().field("b", 2).endObject();
+
+        Assert.assertEquals(body.endObject().toString(), "{\"a\":1}");
+    }
+
+    private static String encode(String value) {
+        return new JsonBuffer().value(value).toString();
+    }
+
+    private static String roundTrip(String value) {
+        return roundTrip(new JsonBuffer(), value);
+    }
+
+    private static String roundTrip(JsonBuffer buffer, String value) {
+        JsonObject parsed = JsonParser.parseString(buffer.beginObject().field("v", value).endObject().toString())
+                .getAsJsonObject();
+        return parsed.get("v").getAsString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.reporting;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTests {
+    private static final long MAX_VALUE = (1L << 41) - 1;
+
+    @Test
+    public void givesEachValueBelowSixteenItsOwnBucket() {
+        for (int micros = 0; micros < 16; micros++) {
+            Assert.assertEquals(LatencyHistogram.bucket(micros), micros);
+            Assert.assertEquals(LatencyHistogram.highestInBucket(micros), micros);
+        }
+    }
+
+    @Test
+    public void bucketsAreContiguousAndOrdered() {
+        // The value just past a bucket's highest is the first of the next bucket
+        for (int bucket = 0; bucket < 607; bucket++) {
+            long highest = LatencyHistogram.highestInBucket(bucket);
+            Assert.assertEquals(LatencyHistogram.bucket(highest), bucket, "highest of bucket " + bucket);
+            Assert.assertEquals(LatencyHistogram.bucket(highest + 1), bucket + 1, "after bucket " + bucket);
+        }
+    }
+
+    @Test
+    public void splitsEachPowerOfTwoIntoSixteenBuckets() {
+        Assert.assertEquals(LatencyHistogram.bucket(16), 16);
+        Assert.assertEquals(LatencyHistogram.bucket(31), 31);
+        Assert.assertEquals(LatencyHistogram.bucket(32), 32);
+        Assert.assertEquals(LatencyHistogram.bucket(33), 32);
+        Assert.assertEquals(LatencyHistogram.bucket(34), 33);
+        Assert.assertEquals(LatencyHistogram.highestInBucket(32), 33);
+        Assert.assertEquals(LatencyHistogram.bucket(1024) - LatencyHistogram.bucket(512), 16);
+    }
+
+    @Test
+    public void overstatesAValueByAtMostOneSixteenth() {
+        for (long micros = 16; micros < MAX_VALUE; micros = micros * 3 / 2 + 1) {
+            long highest = LatencyHistogram.highestInBucket(LatencyHistogram.bucket(micros));
+            Assert.assertTrue(highest >= micros, micros + " -> " + highest);
+            Assert.assertTrue(highest - micros <= micros / 16, micros + " -> " + highest);
+        }
+    }
+
+    @Test
+    public void coversUpToTheLargestRecordableValue() {
+        Assert.assertEquals(LatencyHistogram.bucket(MAX_VALUE), 607);
+        Assert.assertEquals(LatencyHistogram.highestInBucket(607), MAX_VALUE);
+    }
+
+    @Test
+    public void clampsNegativeAndOversizedDurations() {
+        LatencyHistogram histogram = new LatencyHistogram("test", "test");
+        histogram.recordNanos(-5_000);
+        histogram.recordNanos(Long.MAX_VALUE);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(snapshot.count(), 2);
+        Assert.assertEquals(snapshot.maxMicros(), MAX_VALUE);
+        Assert.assertEquals(snapshot.p50(), 0);
+    }
+
+    @Test
+    public void reportsPercentilesWithinABucketOfTheTrueValue() {
+        LatencyHistogram histogram = new LatencyHistogram("test", "test");
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.recordNanos(micros * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(snapshot.count(), 1000);
+        Assert.assertEquals(snapshot.sumMicros(), 500_500);
+        Assert.assertEquals(snapshot.maxMicros(), 1000);
+        assertWithinBucket(snapshot.p50(), 500);
+        assertWithinBucket(snapshot.p90(), 900);
+        assertWithinBucket(snapshot.p99(), 990);
+        // Capped at the largest value recorded rather than the top of its bucket
+        Assert.assertEquals(snapshot.p999(), 1000);
+    }
+
+    @Test
+    public void reportsZerosWhenEmpty() {
+        Assert.assertEquals(new LatencyHistogram("test", "test").snapshot(),
+                new LatencyHistogram.Snapshot(0, 0, 0, 0, 0, 0, 0));
+    }
+
+    private static void assertWithinBucket(long reported, long actual) {
+        Assert.assertEquals(reported, LatencyHistogram.highestInBucket(LatencyHistogram.bucket(actual)),
+                "reported " + reported + " for " + actual);
+    }
+}
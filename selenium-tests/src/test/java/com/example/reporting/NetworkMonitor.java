@@ -0,0 +1,253 @@
+package com.example.reporting;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link NetworkProfile} applied to one browser session for one test.
+ * <p>
+ * Blocking uses {@code Network.setBlockedURLs}, so blocked requests fail inside the browser
+ * without a round trip. The counters come from the {@code Network} domain's events, sent as
+ * raw CDP so they work with whichever DevTools version the browser speaks. The asset cache
+ * goes through {@link NetworkInterceptor}, the only part that costs a round trip per request.
+ * Counters stay readable after {@link #close()}.
+ */
+final class NetworkMonitor implements AutoCloseable {
+    private static final ReporterLog LOG = ReporterLog.get("NetworkMonitor");
+    private static final boolean RECORD = Boolean.parseBoolean(System.getProperty("network.cache.record", "true"));
+    private static final Json JSON = new Json();
+    // Headers about the original transfer, which no longer match the decoded body served from the cache
+    private static final Set<String> TRANSFER_HEADERS = Set.of("content-length", "content-encoding",
+            "transfer-encoding", "connection", "keep-alive", "date", "set-cookie", "age");
+    private static final Map<String, String> STATIC_TYPES = Map.ofEntries(
+            Map.entry("js", "application/javascript"),
+            Map.entry("mjs", "application/javascript"),
+            Map.entry("css", "text/css"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("woff", "font/woff"),
+            Map.entry("woff2", "font/woff2"),
+            Map.entry("ttf", "font/ttf"));
+
+    private final DevTools devTools;
+    private final Path cacheDir;
+    private volatile NetworkInterceptor interceptor;
+    // requestId -> CDP timestamp in seconds, until the request finishes or fails
+    private final Map<String, Double> started = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator slowestMicros = new LongAccumulator(Math::max, 0);
+    private final LongAdder cacheHits = new LongAdder();
+    private volatile boolean closed;
+
+    private NetworkMonitor(DevTools devTools, Path cacheDir) {
+        this.devTools = devTools;
+        this.cacheDir = cacheDir;
+    }
+
+    static NetworkMonitor start(HasDevTools driver, NetworkProfile profile) {
+        DevTools devTools = driver.getDevTools();
+        devTools.createSessionIfThereIsNotOne();
+        NetworkMonitor monitor = new NetworkMonitor(devTools, profile.cacheDir());
+        devTools.addListener(event("Network.requestWillBeSent"), monitor::onRequest);
+        devTools.addListener(event("Network.loadingFinished"), monitor::onFinished);
+        devTools.addListener(event("Network.loadingFailed"), monitor::onFailed);
+        devTools.send(command("Network.enable", Map.of()));
+        if (!profile.blockedUrls().isEmpty()) {
+            devTools.send(command("Network.setBlockedURLs", Map.of("urls", profile.blockedUrls())));
+        }
+        if (profile.cacheDir() != null) {
+            monitor.interceptor = new NetworkInterceptor((WebDriver) driver, (Filter) monitor::cache);
+        }
+        return monitor;
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    private static Command<Void> command(String method, Map<String, Object> params) {
+        return new Command<>(method, params);
+    }
+
+    private void onRequest(Map<String, Object> params) {
+        if (closed) return;
+        requests.increment();
+        // A redirect reuses the request ID; the request's time runs from the first hop
+        started.putIfAbsent(String.valueOf(params.get("requestId")), number(params.get("timestamp")));
+    }
+
+    private void onFinished(Map<String, Object> params) {
+        Double start = started.remove(String.valueOf(params.get("requestId")));
+        if (closed) return;
+        bytes.add((long) number(params.get("encodedDataLength")));
+        if (start != null) {
+            long micros = (long) ((number(params.get("timestamp")) - start) * 1_000_000);
+            totalMicros.add(micros);
+            slowestMicros.accumulate(micros);
+        }
+    }
+
+    private void onFailed(Map<String, Object> params) {
+        started.remove(String.valueOf(params.get("requestId")));
+        if (closed) return;
+        if (params.get("blockedReason") != null) {
+            blocked.increment();
+        } else if (!Boolean.TRUE.equals(params.get("canceled"))) {
+            failed.increment();
+        }
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number n ? n.doubleValue() : 0;
+    }
+
+    // Serves static GETs from the cache directory, keyed by the URL's hash, and records misses.
+    // The origin's headers are kept next to the body and replayed, so CORS checks on fonts,
+    // module scripts and crossorigin scripts pass for cached copies too.
+    private HttpHandler cache(HttpHandler next) {
+        return request -> {
+            String type = request.getMethod() == HttpMethod.GET ? staticType(request.getUri()) : null;
+            if (type == null) return next.execute(request);
+            Path file = cacheDir.resolve(sha256(request.getUri()));
+            Path headersFile = file.resolveSibling(file.getFileName() + ".headers");
+            // Entries recorded without their headers are treated as misses and recorded again
+            if (Files.isRegularFile(file) && Files.isRegularFile(headersFile)) {
+                try {
+                    byte[] body = Files.readAllBytes(file);
+                    Map<String, List<String>> headers = JSON.toType(Files.readString(headersFile), Json.MAP_TYPE);
+                    HttpResponse cached = new HttpResponse().setStatus(200);
+                    headers.forEach((name, values) -> values.forEach(value -> cached.addHeader(name, value)));
+                    if (cached.getHeader("Content-Type") == null) cached.setHeader("Content-Type", type);
+                    cacheHits.increment();
+                    return cached
+                            .setHeader("Content-Length", Integer.toString(body.length))
+                            .setContent(Contents.bytes(body));
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("Could not read cached " + request.getUri() + ": " + e.getMessage());
+                }
+            }
+            HttpResponse response = next.execute(request);
+            if (RECORD && response.getStatus() == 200) {
+                byte[] body = Contents.bytes(response.getContent());
+                Map<String, List<String>> headers = new LinkedHashMap<>();
+                for (String name : response.getHeaderNames()) {
+                    if (TRANSFER_HEADERS.contains(name.toLowerCase(Locale.ROOT))) continue;
+                    List<String> values = new ArrayList<>();
+                    response.getHeaders(name).forEach(values::add);
+                    headers.put(name, values);
+                }
+                // The body is written last; it is what marks the entry complete
+                store(headersFile, JSON.toJson(headers).getBytes(StandardCharsets.UTF_8));
+                store(file, body);
+                response.setContent(Contents.bytes(body));
+            }
+            return response;
+        };
+    }
+
+    static String staticType(String uri) {
+        String path;
+        try {
+            path = URI.create(uri).getPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (path == null) return null;
+        int dot = path.lastIndexOf('.');
+        return dot < 0 || dot < path.lastIndexOf('/') ? null
+                : STATIC_TYPES.get(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static void store(Path file, byte[] body) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "asset", ".tmp");
+            Files.write(tmp, body);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * This test's counters for the report, e.g.
+     * {@code 42 requests, 7 blocked, 0 failed, 812 KB, 3.1s total, slowest 640ms, 12 from cache}.
+     */
+    String summary() {
+        StringBuilder line = new StringBuilder()
+                .append(requests.sum()).append(" requests, ")
+                .append(blocked.sum()).append(" blocked, ")
+                .append(failed.sum()).append(" failed, ")
+                .append(bytes.sum() / 1024).append(" KB, ")
+                .append(String.format(Locale.ROOT, "%.1fs", totalMicros.sum() / 1_000_000.0)).append(" total, slowest ")
+                .append(slowestMicros.get() / 1000).append("ms");
+        if (cacheDir != null) line.append(", ").append(cacheHits.sum()).append(" from cache");
+        return line.toString();
+    }
+
+    /**
+     * Stops counting and lifts the blocking and interception, so a pooled session is handed
+     * to the next test as it was.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            if (interceptor != null) interceptor.close();
+            devTools.clearListeners();
+            devTools.send(command("Network.setBlockedURLs", Map.of("urls", List.of())));
+            devTools.send(command("Network.disable", Map.of()));
+        } catch (RuntimeException e) {
+            LOG.debug(() -> "Network profile teardown failed: " + e.getMessage());
+        }
+    }
+}
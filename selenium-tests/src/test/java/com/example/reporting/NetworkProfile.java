@@ -0,0 +1,135 @@
+package com.example.reporting;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.testng.xml.XmlTest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the browser may fetch, selected per suite with the {@code networkProfile} parameter
+ * (or {@code -Dnetwork.profile}).
+ * <ul>
+ *   <li>{@code none} — no interference and no DevTools connection</li>
+ *   <li>{@code lean} — blocks common ad, analytics and tag manager hosts</li>
+ * </ul>
+ * {@code networkBlock} adds comma-separated URL patterns ({@code *} wildcards) to either,
+ * and {@code networkCacheDir} serves static assets (scripts, styles, images, fonts) from a
+ * local directory, recording the ones it does not have yet unless
+ * {@code -Dnetwork.cache.record=false}. Blocking costs nothing per request; the cache has
+ * every request pass through the test JVM, so it pays off only for heavy or slow assets.
+ * Any active profile also counts requests, bytes and time per test, which
+ * {@link ReporterListener} reports as a step; {@code -Dnetwork.timing=true} counts
+ * without blocking anything. Needs a Chromium driver; others run unchanged.
+ */
+public final class NetworkProfile {
+    private static final ReporterLog LOG = ReporterLog.get("NetworkProfile");
+
+    static final List<String> LEAN_BLOCKLIST = List.of(
+            "*doubleclick.net*",
+            "*googlesyndication.com*",
+            "*googleadservices.com*",
+            "*adservice.google.*",
+            "*google-analytics.com*",
+            "*googletagmanager.com*",
+            "*googletagservices.com*",
+            "*amazon-adsystem.com*",
+            "*adnxs.com*",
+            "*criteo.com*",
+            "*taboola.com*",
+            "*outbrain.com*",
+            "*pubmatic.com*",
+            "*rubiconproject.com*",
+            "*casalemedia.com*",
+            "*moatads.com*",
+            "*scorecardresearch.com*",
+            "*hotjar.com*",
+            "*connect.facebook.net*",
+            "*ezojs.com*",
+            "*ezoic.net*");
+
+    private final String name;
+    private final List<String> blockedUrls;
+    private final Path cacheDir;
+    private final boolean timing;
+
+    private NetworkProfile(String name, List<String> blockedUrls, Path cacheDir, boolean timing) {
+        this.name = name;
+        this.blockedUrls = List.copyOf(blockedUrls);
+        this.cacheDir = cacheDir;
+        this.timing = timing;
+    }
+
+    public static NetworkProfile none() {
+        return new NetworkProfile("none", List.of(), null, false);
+    }
+
+    public static NetworkProfile named(String name, String block, String cacheDir) {
+        String profile = name == null || name.isBlank() ? "none" : name.trim().toLowerCase();
+        List<String> blocked = new ArrayList<>();
+        switch (profile) {
+            case "none":
+                break;
+            case "lean":
+                blocked.addAll(LEAN_BLOCKLIST);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown network profile: " + name);
+        }
+        if (block != null) {
+            Arrays.stream(block.split(",")).map(String::trim).filter(p -> !p.isEmpty()).forEach(blocked::add);
+        }
+        Path cache = cacheDir == null || cacheDir.isBlank() ? null : Paths.get(cacheDir);
+        return new NetworkProfile(profile, blocked, cache, Boolean.getBoolean("network.timing"));
+    }
+
+    /**
+     * Resolves the profile for a {@code <test>}; system properties win over suite parameters.
+     */
+    public static NetworkProfile resolve(XmlTest test) {
+        return named(
+                System.getProperty("network.profile", test.getParameter("networkProfile")),
+                System.getProperty("network.block", test.getParameter("networkBlock")),
+                System.getProperty("network.cacheDir", test.getParameter("networkCacheDir")));
+    }
+
+    boolean active() {
+        return !blockedUrls.isEmpty() || cacheDir != null || timing;
+    }
+
+    List<String> blockedUrls() {
+        return blockedUrls;
+    }
+
+    Path cacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Applies the profile to a session for one test; {@code null} when there is nothing to
+     * apply. The caller closes the monitor before the session is reused.
+     */
+    NetworkMonitor attach(WebDriver driver) {
+        if (!active()) return null;
+        if (!(driver instanceof HasDevTools)) {
+            LOG.warn("Network profile " + name + " needs a Chromium driver, not applied");
+            return null;
+        }
+        try {
+            return NetworkMonitor.start((HasDevTools) driver, this);
+        } catch (RuntimeException e) {
+            // A DevTools hiccup must not fail the test; it only loses the blocking and counters
+            LOG.warn("Could not apply network profile " + name + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.reporting;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Element waits that resolve as soon as the page changes instead of polling over the wire.
+ * <p>
+ * On Chromium drivers the condition is evaluated inside the page through the DevTools
+ * {@code Runtime.evaluate} command with {@code awaitPromise}: a {@code MutationObserver}
+ * re-checks it on every DOM change (plus every 100ms for CSS-only changes), so the one
+ * round trip returns the moment the element qualifies and a single {@code findElement}
+ * fetches it. A navigation mid-wait destroys the promise; the wait then re-arms on the new
+ * document. {@code Runtime.evaluate} only sees the top-level document, so each wait first
+ * asks the driver's current browsing context whether it is the top one; inside a frame,
+ * and on other drivers, link text locators, and pages where evaluation
+ * keeps failing, the wait falls back to polling that starts at 10ms and doubles up to
+ * {@code wait.poll.maxMs} (500), so quick conditions are not charged a full interval.
+ * <p>
+ * Each wait also estimates what {@link org.openqa.selenium.support.ui.WebDriverWait}'s
+ * fixed 500ms polling would have added, and records it on the test's
+ * {@link ReportingContext}; {@link ReporterListener} logs it per test and for the suite.
+ */
+public final class PageWait {
+    private static final ReporterLog LOG = ReporterLog.get("PageWait");
+    private static final long WEBDRIVER_WAIT_POLL_MILLIS = 500;
+    private static final int MAX_REARMS = 5;
+    private static final LongAdder waits = new LongAdder();
+    private static final LongAdder eventDriven = new LongAdder();
+    private static final LongAdder waitedMillis = new LongAdder();
+    private static final LongAdder savedMillis = new LongAdder();
+
+    private enum State {
+        PRESENT("true"),
+        VISIBLE("visible(el)"),
+        CLICKABLE("visible(el) && !el.disabled");
+
+        private final String check;
+
+        State(String check) {
+            this.check = check;
+        }
+    }
+
+    // Placeholders: FIND (an expression yielding the element or null), CHECK, TIMEOUT
+    private static final String SCRIPT = """
+            new Promise(resolve => {
+              const visible = el => !!(el.offsetWidth || el.offsetHeight || el.getClientRects().length)
+                && getComputedStyle(el).visibility !== 'hidden';
+              const test = () => { const el = FIND; return !!el && (CHECK); };
+              let observer, interval, timer;
+              const done = value => {
+                if (observer) observer.disconnect();
+                clearInterval(interval);
+                clearTimeout(timer);
+                resolve(value);
+              };
+              if (test()) return done('now');
+              observer = new MutationObserver(() => { if (test()) done('changed'); });
+              observer.observe(document, { subtree: true, childList: true, attributes: true, characterData: true });
+              interval = setInterval(() => { if (test()) done('changed'); }, 100);
+              timer = setTimeout(() => done('timeout'), TIMEOUT);
+            })""";
+
+    private final WebDriver driver;
+    private final Duration timeout;
+    private final long maxPollMillis = Long.getLong("wait.poll.maxMs", WEBDRIVER_WAIT_POLL_MILLIS);
+
+    private PageWait(WebDriver driver, Duration timeout) {
+        this.driver = driver;
+        this.timeout = timeout;
+    }
+
+    public static PageWait on(WebDriver driver, Duration timeout) {
+        return new PageWait(driver, timeout);
+    }
+
+    /**
+     * Waits for an element matching {@code by} to be in the DOM.
+     */
+    public WebElement present(By by) {
+        return await(by, State.PRESENT, ExpectedConditions.presenceOfElementLocated(by));
+    }
+
+    /**
+     * Waits for an element matching {@code by} to be displayed.
+     */
+    public WebElement visible(By by) {
+        return await(by, State.VISIBLE, ExpectedConditions.visibilityOfElementLocated(by));
+    }
+
+    /**
+     * Waits for an element matching {@code by} to be displayed and enabled.
+     */
+    public WebElement clickable(By by) {
+        return await(by, State.CLICKABLE, ExpectedConditions.elementToBeClickable(by));
+    }
+
+    private WebElement await(By by, State state, ExpectedCondition<WebElement> condition) {
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        String find = driver instanceof HasCdp ? finder(by) : null;
+        if (find != null && !inTopDocument()) find = null;
+        WebElement element = null;
+        // Whether the condition held at the first check, where polling costs nothing either
+        boolean immediate = false;
+        boolean observed = false;
+        if (find != null) {
+            for (int attempt = 0; attempt < MAX_REARMS && element == null && System.nanoTime() < deadline; attempt++) {
+                String outcome = evaluate(find, state, deadline);
+                if (outcome == null) continue;
+                if ("timeout".equals(outcome)) break;
+                element = fetch(condition);
+                immediate = attempt == 0 && "now".equals(outcome);
+                observed = element != null;
+            }
+        }
+        if (element == null) {
+            element = fetch(condition);
+            immediate = element != null && find == null;
+        }
+        if (element == null) {
+            element = poll(condition, deadline);
+        }
+        long waited = (System.nanoTime() - start) / 1_000_000;
+        record(waited, immediate, observed);
+        if (element == null) {
+            throw new TimeoutException("Expected condition failed: waiting for " + condition + " (tried for "
+                    + timeout.toSeconds() + " second(s))");
+        }
+        return element;
+    }
+
+    // The driver may have switched into a frame, where an in-page check of the top document would be wrong
+    private boolean inTopDocument() {
+        try {
+            return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript("return window === window.top"));
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return {@code now} or {@code changed} when the condition was met at once or later,
+     * {@code timeout}, or {@code null} when the evaluation failed (typically because the page
+     * navigated) and may be re-armed
+     */
+    private String evaluate(String find, State state, long deadline) {
+        long remaining = Math.max(1, (deadline - System.nanoTime()) / 1_000_000);
+        // The locator goes in last so its text is never mistaken for a placeholder
+        String expression = SCRIPT.replace("CHECK", state.check).replace("TIMEOUT", Long.toString(remaining))
+                .replace("FIND", find);
+        try {
+            Map<String, Object> response = ((HasCdp) driver).executeCdpCommand("Runtime.evaluate",
+                    Map.of("expression", expression, "awaitPromise", true, "returnByValue", true));
+            if (response.get("exceptionDetails") != null) return null;
+            return response.get("result") instanceof Map<?, ?> result && result.get("value") instanceof String outcome
+                    ? outcome : null;
+        } catch (WebDriverException e) {
+            LOG.debug(() -> "In-page wait interrupted, re-arming: " + e.getMessage().lines().findFirst().orElse(""));
+            return null;
+        }
+    }
+
+    // The page said yes; one round trip fetches the element, unless it changed again meanwhile
+    private WebElement fetch(ExpectedCondition<WebElement> condition) {
+        try {
+            return condition.apply(driver);
+        } catch (NoSuchElementException | StaleElementReferenceException e) {
+            return null;
+        }
+    }
+
+    private WebElement poll(ExpectedCondition<WebElement> condition, long deadline) {
+        long interval = 10;
+        while (true) {
+            long remaining = (deadline - System.nanoTime()) / 1_000_000;
+            if (remaining <= 0) return null;
+            try {
+                Thread.sleep(Math.min(interval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            interval = Math.min(interval * 2, maxPollMillis);
+            WebElement element = fetch(condition);
+            if (element != null) return element;
+        }
+    }
+
+    // A JavaScript expression locating the element, or null when the locator has no DOM equivalent
+    static String finder(By by) {
+        if (!(by instanceof By.Remotable remotable)) return null;
+        By.Remotable.Parameters parameters = remotable.getRemoteParameters();
+        String value = String.valueOf(parameters.value());
+        return switch (parameters.using()) {
+            case "id" -> "document.getElementById(" + literal(value) + ")";
+            case "name" -> "document.getElementsByName(" + literal(value) + ")[0]";
+            case "class name" -> "document.getElementsByClassName(" + literal(value) + ")[0]";
+            case "tag name" -> "document.getElementsByTagName(" + literal(value) + ")[0]";
+            case "css selector" -> "document.querySelector(" + literal(value) + ")";
+            case "xpath" -> "document.evaluate(" + literal(value)
+                    + ", document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue";
+            default -> null;
+        };
+    }
+
+    private static String literal(String value) {
+        StringBuilder out = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> {
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        out.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    // WebDriverWait checks at once and then every 500ms, so it sees a condition that turned
+    // true after t at the next multiple of 500ms; a wait met at the first check saves nothing
+    private static void record(long waited, boolean immediate, boolean observed) {
+        long polled = immediate ? waited
+                : (waited + WEBDRIVER_WAIT_POLL_MILLIS - 1) / WEBDRIVER_WAIT_POLL_MILLIS * WEBDRIVER_WAIT_POLL_MILLIS;
+        long saved = Math.max(0, polled - waited);
+        waits.increment();
+        if (observed) eventDriven.increment();
+        waitedMillis.add(waited);
+        savedMillis.add(saved);
+        ReportingContext context = ReportingContext.currentOrNull();
+        if (context != null) context.recordWait(waited, saved);
+    }
+
+    /**
+     * Suite totals for the log, or {@code null} when no wait ran.
+     */
+    static String summary() {
+        long count = waits.sum();
+        if (count == 0) return null;
+        return count + " waits (" + eventDriven.sum() + " event-driven), " + waitedMillis.sum()
+                + "ms waited, ~" + savedMillis.sum() + "ms saved vs 500ms polling";
+    }
+}
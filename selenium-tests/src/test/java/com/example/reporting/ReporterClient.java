@@ -1,115 +1,242 @@
 package com.example.reporting;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public class ReporterClient {
+    private static final ReporterLog LOG = ReporterLog.get("Reporter");
     private final String baseUrl;
     private final String token;
-    private final HttpClient client;
-    private final Gson gson;
+    private final ResilientSender sender;
+    private final AsyncEventDispatcher dispatcher;
+    private final ArtifactUploader artifacts;
 
     public ReporterClient(String baseUrl, String token) {
+        this(baseUrl, token, Boolean.getBoolean("reporter.async") || Boolean.getBoolean("reporter.batch")
+                || Boolean.getBoolean("reporter.stream"));
+    }
+
+    public ReporterClient(String baseUrl, String token, boolean async) {
         this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
         this.token = token;
-        this.client = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(5))
-                .build();
-        this.gson = new GsonBuilder().create();
+        TokenProvider.register(this.baseUrl, token);
+        this.sender = ResilientSender.shared();
+        this.dispatcher = async ? AsyncEventDispatcher.shared() : null;
+        this.artifacts = new ArtifactUploader(sender.transport(), this.baseUrl, token, async);
     }
 
     private HttpRequest.Builder request(String path) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(baseUrl + path))
+        return sender.transport().request(URI.create(baseUrl + path))
                 .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + token)
-                .timeout(Duration.ofSeconds(10));
+                .header("Authorization", TokenProvider.authorization(token))
+                .timeout(sender.timeout());
     }
 
-    private void post(String path, Map<String, Object> body) {
+    /**
+     * Waits for queued events to be delivered, including events a synchronous client
+     * diverted while the backend was unavailable.
+     *
+     * @return {@code false} if events were still outstanding when the timeout elapsed
+     */
+    public boolean flush(Duration timeout) {
+        boolean uploads = ArtifactUploader.awaitUploads(timeout);
+        AsyncEventDispatcher queued = dispatcher != null ? dispatcher : AsyncEventDispatcher.sharedIfStarted();
+        return (queued == null || queued.flush(timeout)) && uploads;
+    }
+
+    // Test-case events go through the async queue when enabled, ordered per test case
+    private void post(String type, String runId, String testCaseId, String path, ReporterPayload payload) {
+        post(type, runId, testCaseId, path, payload, null, null);
+    }
+
+    /**
+     * @param runId     the run ID as it appears in {@code path}, already passed through {@link CanonicalIds#run}
+     * @param onCreated receives the response body of a synchronous, successful send
+     * @param onSettled runs once the backend has taken or rejected the event, whichever path it took
+     */
+    private void post(String type, String runId, String testCaseId, String path, ReporterPayload payload,
+                      Consumer<String> onCreated, Runnable onSettled) {
+        JsonBuffer json = encode(payload);
+        logRequest(path, payload);
+        if (dispatcher != null) {
+            dispatcher.submit(new ReporterEvent(type, runId, testCaseId, baseUrl, path, json.toString()), onSettled);
+            return;
+        }
+        String idempotencyKey = UUID.randomUUID().toString();
+        AsyncEventDispatcher diverted = AsyncEventDispatcher.sharedIfStarted();
+        // Once a test case has events in the async buffer, the rest follow them there to keep their order
+        if (sender.isOpen() || (diverted != null && diverted.holds(testCaseId))
+                || !send(runId, path, json, idempotencyKey, onCreated)) {
+            // Don't stall the test on an unreachable backend; the async buffer retries once it recovers
+            AsyncEventDispatcher.shared().submit(new ReporterEvent(type, runId, testCaseId, baseUrl, path,
+                    json.toString(), idempotencyKey, -1, System.nanoTime()), onSettled);
+        } else if (onSettled != null) {
+            onSettled.run();
+        }
+    }
+
+    private void post(String runId, String path, ReporterPayload payload, Consumer<String> onCreated) {
+        JsonBuffer json = encode(payload);
+        logRequest(path, payload);
+        send(runId, path, json, UUID.randomUUID().toString(), onCreated);
+    }
+
+    private static JsonBuffer encode(ReporterPayload payload) {
+        JsonBuffer json = JsonBuffer.forBody();
+        payload.writeTo(json, false);
+        return json;
+    }
+
+    private void logRequest(String path, ReporterPayload payload) {
+        // Bodies are only encoded when DEBUG is on; screenshots are left out to avoid flooding the console
+        LOG.debug(() -> {
+            JsonBuffer redacted = JsonBuffer.forLog();
+            payload.writeTo(redacted, true);
+            return "POST " + path + ": " + redacted;
+        });
+    }
+
+    /**
+     * Sends synchronously with retries. The body is published straight from the
+     * thread's buffer, which stays untouched until this returns.
+     *
+     * @return {@code false} if the request failed or was short-circuited and may be sent again
+     */
+    private boolean send(String runId, String path, JsonBuffer json, String idempotencyKey, Consumer<String> onCreated) {
         try {
-            String json = gson.toJson(body);
-            // Log without screenshot to avoid flooding console
-            Map<String, Object> logBody = new HashMap<>(body);
-            if (logBody.containsKey("screenshot")) {
-                logBody.put("screenshot", "[BASE64_IMAGE]");
-            }
-            System.out.println("[Reporter] POST " + path + ": " + gson.toJson(logBody));
-            HttpRequest request = request(path)
-                    .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+            HttpRequest.Builder builder = CanonicalIds.mark(request(path), runId).header("Idempotency-Key", idempotencyKey);
+            HttpRequest request = builder
+                    .POST(RequestCompression.publisher(builder, json.array(), 0, json.size(), false))
                     .build();
-            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
-            if (response.statusCode() >= 400) {
-                System.err.println("[Reporter] Error " + response.statusCode() + " on " + path);
-            } else {
-                System.out.println("[Reporter] Success " + response.statusCode());
+            // Only start responses are read; every other body is discarded unread
+            ResilientSender.Result<String> result = sender.send(request, onCreated != null
+                    ? HttpResponse.BodyHandlers.ofString() : HttpResponse.BodyHandlers.replacing(null));
+            switch (result.outcome()) {
+                case DELIVERED -> {
+                    LOG.debug(() -> "Success " + result.status() + " on " + path);
+                    if (onCreated != null) onCreated.accept(result.response().body());
+                }
+                case REJECTED -> LOG.warn("Error " + result.status() + " on " + path);
+                case SHORT_CIRCUITED -> LOG.warn("Circuit open, not sending " + path);
+                case FAILED -> LOG.warn("Request failed on " + path + ": "
+                        + (result.error() != null ? result.error().getMessage() : "status " + result.status()));
             }
-        } catch (Exception e) {
-            System.err.println("[Reporter] Request failed: " + e.getMessage());
-            e.printStackTrace();
+            return result.settled();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
     // New API: run-based
     public void startRun(String runId, String browser) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("runId", runId);
-        body.put("browser", browser);
-        post("/api/executions/runs/start", body);
+        startRun(runId, new ReporterPayload.RunStart(runId, browser, null));
     }
 
     public void startRunWithTags(String runId, String browser, String[] tags) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("runId", runId);
-        body.put("browser", browser);
-        body.put("tags", tags);
-        post("/api/executions/runs/start", body);
+        startRun(runId, new ReporterPayload.RunStart(runId, browser, tags != null ? Arrays.asList(tags) : null));
+    }
+
+    // Later calls address the run by the document ID the backend answers with
+    private void startRun(String runId, ReporterPayload.RunStart payload) {
+        post(null, "/api/executions/runs/start", payload, body -> CanonicalIds.learnRun(runId, body));
+    }
+
+    private static String runPath(String runId) {
+        return "/api/executions/runs/" + runId;
+    }
+
+    private static String testCasePath(String runId, String testCaseId, String action) {
+        return runPath(runId) + "/test-cases/" + testCaseId + "/" + action;
     }
 
     public void startTestCase(String runId, String testCaseId, String testName, List<String> tags) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("testCaseId", testCaseId);
-        body.put("testName", testName);
-        body.put("tags", tags);
-        post("/api/executions/runs/" + runId + "/test-cases/start", body);
+        String run = CanonicalIds.run(runId);
+        post(ReporterEvent.TEST_CASE_START, run, testCaseId, runPath(run) + "/test-cases/start",
+                new ReporterPayload.TestCaseStart(testCaseId, testName, tags),
+                body -> CanonicalIds.learnTestCase(testCaseId, body), null);
     }
 
     public void logStep(String runId, String testCaseId, String stepName, String status, String screenshotBase64, String error) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("stepName", stepName);
-        body.put("status", status);
-        if (screenshotBase64 != null) body.put("screenshot", screenshotBase64);
-        if (error != null) body.put("error", error);
-        post("/api/executions/runs/" + runId + "/test-cases/" + testCaseId + "/step", body);
+        String run = CanonicalIds.run(runId);
+        String testCase = CanonicalIds.testCase(testCaseId);
+        post(ReporterEvent.STEP, run, testCase, testCasePath(run, testCase, "step"),
+                new ReporterPayload.Step(stepName, status, screenshotBase64, null, error));
+    }
+
+    /**
+     * Logs a step whose screenshot is uploaded out-of-band; the step body carries only its SHA-256.
+     */
+    public void logStepWithImage(String runId, String testCaseId, String stepName, String status, byte[] screenshotPng, String error) {
+        String hash = screenshotPng != null ? artifacts.upload(screenshotPng) : null;
+        String run = CanonicalIds.run(runId);
+        String testCase = CanonicalIds.testCase(testCaseId);
+        post(ReporterEvent.STEP, run, testCase, testCasePath(run, testCase, "step"),
+                new ReporterPayload.Step(stepName, status, null, hash, error));
+    }
+
+    /**
+     * Logs a step, evaluating the screenshot only now that its status is known.
+     */
+    public void logStepLazy(String runId, String testCaseId, String stepName, String status, ScreenshotSupplier screenshot, String error) {
+        logStepWithImage(runId, testCaseId, stepName, status, screenshot != null ? screenshot.get(status) : null, error);
     }
 
     public void logTestCaseError(String runId, String testCaseId, String stepName, String error, String screenshotBase64) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("stepName", stepName);
-        body.put("error", error);
-        if (screenshotBase64 != null) body.put("screenshot", screenshotBase64);
-        post("/api/executions/runs/" + runId + "/test-cases/" + testCaseId + "/error", body);
+        String run = CanonicalIds.run(runId);
+        String testCase = CanonicalIds.testCase(testCaseId);
+        post(ReporterEvent.ERROR, run, testCase, testCasePath(run, testCase, "error"),
+                new ReporterPayload.TestCaseError(stepName, error, screenshotBase64, null));
+    }
+
+    public void logTestCaseErrorWithImage(String runId, String testCaseId, String stepName, String error, byte[] screenshotPng) {
+        String hash = screenshotPng != null ? artifacts.upload(screenshotPng) : null;
+        String run = CanonicalIds.run(runId);
+        String testCase = CanonicalIds.testCase(testCaseId);
+        post(ReporterEvent.ERROR, run, testCase, testCasePath(run, testCase, "error"),
+                new ReporterPayload.TestCaseError(stepName, error, null, hash));
+    }
+
+    /**
+     * Reports a fingerprinted failure; {@code trace} is {@code null} when the backend already
+     * has the trace for this fingerprint in this run. {@code onSettled} runs once the backend
+     * has taken the event, which is when the trace can be left out of later occurrences.
+     */
+    void logTestCaseFailure(String runId, String testCaseId, String stepName, FailureFingerprint failure,
+                            String trace, byte[] screenshotPng, Runnable onSettled) {
+        String hash = screenshotPng != null ? artifacts.upload(screenshotPng) : null;
+        String run = CanonicalIds.run(runId);
+        String testCase = CanonicalIds.testCase(testCaseId);
+        post(ReporterEvent.ERROR, run, testCase, testCasePath(run, testCase, "error"),
+                new ReporterPayload.TestCaseError(stepName, trace, null, hash, failure.id(), failure.headline()),
+                null, onSettled);
     }
 
     public void finishTestCase(String runId, String testCaseId, String status) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("status", status);
-        post("/api/executions/runs/" + runId + "/test-cases/" + testCaseId + "/finish", body);
+        String run = CanonicalIds.run(runId);
+        String testCase = CanonicalIds.testCase(testCaseId);
+        CanonicalIds.forgetTestCase(testCaseId);
+        post(ReporterEvent.TEST_CASE_FINISH, run, testCase, testCasePath(run, testCase, "finish"),
+                new ReporterPayload.Finish(status));
+    }
+
+    /**
+     * Replaces the run's counters with the client's summary; sent synchronously so
+     * snapshots reach the backend in the order they were taken.
+     */
+    void sendSummary(String runId, ReporterPayload.Summary summary) {
+        String run = CanonicalIds.run(runId);
+        post(run, runPath(run) + "/summary", summary, null);
     }
 
     public void finishRun(String runId, String status) {
-        Map<String, Object> body = new HashMap<>();
-        body.put("status", status);
-        post("/api/executions/runs/" + runId + "/finish", body);
+        String run = CanonicalIds.run(runId);
+        post(run, runPath(run) + "/finish", new ReporterPayload.Finish(status), null);
     }
 }
@@ -0,0 +1,44 @@
+package com.example.reporting;
+
+import java.util.UUID;
+
+/**
+ * A fully serialized reporter call waiting to be sent.
+ * <p>
+ * Events sharing a {@link #key()} (one test case) are delivered in submission order,
+ * events with different keys may interleave. {@code type} names the event in the
+ * bulk endpoint's vocabulary so the same body can be sent alone or inside a batch.
+ * {@code idempotencyKey} is fixed when the event is created and sent with every
+ * attempt, including retries and spool replays, so the backend applies it only once.
+ * {@code spoolOffset} is the event's position in the {@link EventSpool}, or -1 when
+ * it was not spooled. {@code queuedAt} is the {@link System#nanoTime()} at which this
+ * process queued it, for {@link ReporterMetrics#QUEUE_WAIT}. Events are written to disk by
+ * the spool and the spill file, so they carry no credentials; the bearer token is looked up
+ * through {@link TokenProvider#authorizationFor} when the event is sent.
+ */
+record ReporterEvent(String type, String runId, String testCaseId, String baseUrl, String path,
+                     String body, String idempotencyKey, long spoolOffset, long queuedAt) {
+
+    static final String TEST_CASE_START = "testCaseStart";
+    static final String STEP = "step";
+    static final String ERROR = "error";
+    static final String TEST_CASE_FINISH = "testCaseFinish";
+
+    ReporterEvent(String type, String runId, String testCaseId, String baseUrl, String path, String body) {
+        this(type, runId, testCaseId, baseUrl, path, body, UUID.randomUUID().toString(), -1, System.nanoTime());
+    }
+
+    // Also restamps queuedAt, since a recovered event's reading comes from another process
+    ReporterEvent withSpoolOffset(long offset) {
+        return new ReporterEvent(type, runId, testCaseId, baseUrl, path, body, idempotencyKey, offset,
+                System.nanoTime());
+    }
+
+    String key() {
+        return testCaseId;
+    }
+
+    String uri() {
+        return baseUrl + path;
+    }
+}
@@ -1,109 +1,233 @@
 package com.example.reporting;
 
-import org.testng.ITestContext;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-public class ReporterListener implements ITestListener {
-    private final AtomicInteger passedCount = new AtomicInteger(0);
-    private final AtomicInteger failedCount = new AtomicInteger(0);
-    private final AtomicInteger totalCount = new AtomicInteger(0);
+/**
+ * Reports test cases as they run and closes the run once the whole suite is done: the run
+ * spans every {@code <test>} of the suite, so finishing it, the final summary, the duration
+ * history and the metrics file all wait for {@link #onFinish(ISuite)}.
+ */
+public class ReporterListener implements ITestListener, ISuiteListener {
+    private static final ReporterLog LOG = ReporterLog.get("ReporterListener");
+    private static final Duration FLUSH_TIMEOUT = Duration.ofSeconds(
+            Long.getLong("reporter.flushTimeoutSeconds", 30));
+    private static final long SUMMARY_INTERVAL_MS = Long.getLong("reporter.summary.intervalMs", 10000);
+
+    // The run spans every <test> of the suite, so its summary is not reset per context
+    private final Map<String, RunSummary> summaries = new ConcurrentHashMap<>();
+    // RunSummary.changes() as of the last summary sent per run
+    private final Map<String, Long> published = new ConcurrentHashMap<>();
+    // Failure fingerprints whose full trace the backend has taken, per run; until then
+    // every occurrence carries the trace, so a lost or parked first event loses nothing
+    private final Map<String, Set<String>> reportedFailures = new ConcurrentHashMap<>();
+    // Any client can close the run; remembered from the first test since onFinish has no test thread
+    private volatile ReporterClient runClient;
+    private ScheduledExecutorService summaryPublisher;
 
     @Override
-    public void onStart(ITestContext context) {
-        passedCount.set(0);
-        failedCount.set(0);
-        totalCount.set(0);
-        System.out.println("Execution started - RUNNING");
+    public void onStart(ISuite suite) {
+        startSummaryPublisher();
+        LOG.info("Execution started - RUNNING");
+    }
+
+    private synchronized void startSummaryPublisher() {
+        if (summaryPublisher != null || SUMMARY_INTERVAL_MS <= 0) return;
+        summaryPublisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reporter-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summaryPublisher.scheduleWithFixedDelay(() -> summaries.keySet().forEach(runId -> publishSummary(runId, false)),
+                SUMMARY_INTERVAL_MS, SUMMARY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    // The final summary goes out after this, so no periodic one can follow it
+    private synchronized void stopSummaryPublisher() {
+        if (summaryPublisher == null) return;
+        summaryPublisher.shutdownNow();
+        summaryPublisher = null;
+    }
+
+    // Synchronized so snapshots are sent in sequence order
+    private synchronized void publishSummary(String runId, boolean always) {
+        ReporterClient client = runClient;
+        RunSummary summary = summaries.get(runId);
+        if (client == null || summary == null) return;
+        long changes = summary.changes();
+        if (!always && published.getOrDefault(runId, -1L) == changes) return;
+        try {
+            client.sendSummary(runId, summary.snapshot());
+            published.put(runId, changes);
+        } catch (RuntimeException e) {
+            // A throwing task would cancel the schedule
+            LOG.warn("Failed to send run summary: " + e.getMessage());
+        }
+    }
+
+    private void recordFinish(ITestResult result, ReportingContext reporting, String status) {
+        long millis = Math.max(0, result.getEndMillis() - result.getStartMillis());
+        RunSummary summary = summaries.get(reporting.runId());
+        if (summary != null) {
+            summary.testFinished(result.getTestClass().getName(), reporting.tags(), status, millis);
+        }
+        // A skipped test did not run, so it says nothing about how long the method takes
+        if (!"SKIPPED".equals(status)) {
+            DurationHistory.shared().record(DurationScheduler.key(result.getMethod()), millis);
+        }
+        String waits = reporting.waitSummary();
+        if (waits != null) {
+            LOG.info("Waits in " + result.getMethod().getMethodName() + ": " + waits);
+        }
+    }
+
+    // Network counters go in as one more step, next to the ones the test logged
+    private void reportNetwork(ReportingContext reporting, ReporterClient client, String runId, String testCaseId) {
+        NetworkMonitor network = reporting.network();
+        if (network != null) {
+            client.logStep(runId, testCaseId, "Network: " + network.summary(), "PASS", null, null);
+        }
     }
 
     @Override
     public void onTestStart(ITestResult result) {
-        ITestContext ctx = result.getTestContext();
-        ReporterClient client = (ReporterClient) ctx.getAttribute("reporterClient");
-        String runId = (String) ctx.getAttribute("runId");
+        ReportingContext reporting = ReportingContext.of(result);
+        if (reporting == null) {
+            LOG.warn("onTestStart: No reporting context for " + result.getName());
+            return;
+        }
+        result.setAttribute(ReportingContext.ATTRIBUTE, reporting);
+        ReporterClient client = reporting.client();
+        runClient = client;
+        String runId = reporting.runId();
         String testName = result.getMethod().getMethodName();
         String[] groups = result.getMethod().getGroups();
         List<String> tags = groups != null && groups.length > 0 ? Arrays.asList(groups) : List.of("default");
-        System.out.println("Test Groups: " + Arrays.toString(groups));
-        totalCount.incrementAndGet();
         String testCaseId = UUID.randomUUID().toString();
-        ctx.setAttribute("testCaseId", testCaseId);
-        ctx.setAttribute("testTags", tags);
-        System.out.println("[ReporterListener] onTestStart: runId=" + runId + ", testName=" + testName + ", testCaseId=" + testCaseId);
+        reporting.startTestCase(testCaseId, tags);
+        if (runId != null) {
+            summaries.computeIfAbsent(runId, id -> new RunSummary()).testStarted(result.getTestClass().getName(), tags);
+        }
+        LOG.debug(() -> "onTestStart: runId=" + runId + ", testName=" + testName + ", testCaseId=" + testCaseId
+                + ", groups=" + Arrays.toString(groups));
         if (client != null && runId != null) {
             client.startTestCase(runId, testCaseId, testName, tags);
         } else {
-            System.err.println("[ReporterListener] onTestStart: Missing client or runId! runId=" + runId);
+            LOG.warn("onTestStart: Missing client or runId! runId=" + runId);
         }
     }
 
     @Override
     public void onTestSuccess(ITestResult result) {
-        ITestContext ctx = result.getTestContext();
-        ReporterClient client = (ReporterClient) ctx.getAttribute("reporterClient");
-        String runId = (String) ctx.getAttribute("runId");
-        String testCaseId = (String) ctx.getAttribute("testCaseId");
-        passedCount.incrementAndGet();
-        System.out.println("[ReporterListener] onTestSuccess: runId=" + runId + ", testCaseId=" + testCaseId);
+        ReportingContext reporting = ReportingContext.of(result);
+        if (reporting == null) return;
+        recordFinish(result, reporting, "PASS");
+        ReporterClient client = reporting.client();
+        String runId = reporting.runId();
+        String testCaseId = reporting.testCaseId();
+        LOG.debug(() -> "onTestSuccess: runId=" + runId + ", testCaseId=" + testCaseId);
         if (client != null && runId != null && testCaseId != null) {
+            reportNetwork(reporting, client, runId, testCaseId);
             client.finishTestCase(runId, testCaseId, "PASS");
         }
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
-        ITestContext ctx = result.getTestContext();
-        ReporterClient client = (ReporterClient) ctx.getAttribute("reporterClient");
-        String runId = (String) ctx.getAttribute("runId");
-        String testCaseId = (String) ctx.getAttribute("testCaseId");
-        failedCount.incrementAndGet();
-        Object driverObj = ctx.getAttribute("driver");
-        String screenshot = null;
+        ReportingContext reporting = ReportingContext.of(result);
+        if (reporting == null) return;
+        recordFinish(result, reporting, "FAIL");
+        ReporterClient client = reporting.client();
+        String runId = reporting.runId();
+        String testCaseId = reporting.testCaseId();
+        Object driverObj = reporting.driver();
+        byte[] screenshot = null;
         if (driverObj instanceof org.openqa.selenium.TakesScreenshot) {
             try {
-                screenshot = ((org.openqa.selenium.TakesScreenshot) driverObj)
-                        .getScreenshotAs(org.openqa.selenium.OutputType.BASE64);
+                screenshot = ScreenshotPolicies.capture((org.openqa.selenium.TakesScreenshot) driverObj,
+                        org.openqa.selenium.OutputType.BYTES);
             } catch (Exception e) {
-                System.err.println("[ReporterListener] Failed to capture screenshot: " + e.getMessage());
+                LOG.warn("Failed to capture screenshot: " + e.getMessage());
             }
         }
-        System.out.println("[ReporterListener] onTestFailure: runId=" + runId + ", testCaseId=" + testCaseId);
+        LOG.debug(() -> "onTestFailure: runId=" + runId + ", testCaseId=" + testCaseId);
         if (client != null && runId != null && testCaseId != null) {
-            StringWriter sw = new StringWriter();
-            result.getThrowable().printStackTrace(new PrintWriter(sw));
-            client.logTestCaseError(runId, testCaseId, result.getMethod().getMethodName(), sw.toString(), screenshot);
+            reportNetwork(reporting, client, runId, testCaseId);
+            Throwable error = result.getThrowable();
+            FailureFingerprint failure = FailureFingerprint.of(error);
+            Set<String> reported = reportedFailures.computeIfAbsent(runId, id -> ConcurrentHashMap.newKeySet());
+            boolean known = reported.contains(failure.id());
+            client.logTestCaseFailure(runId, testCaseId, result.getMethod().getMethodName(), failure,
+                    known ? null : FailureFingerprint.trace(error), screenshot,
+                    known ? null : () -> reported.add(failure.id()));
             client.finishTestCase(runId, testCaseId, "FAIL");
         }
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
-        ITestContext ctx = result.getTestContext();
-        ReporterClient client = (ReporterClient) ctx.getAttribute("reporterClient");
-        String runId = (String) ctx.getAttribute("runId");
-        String testCaseId = (String) ctx.getAttribute("testCaseId");
+        ReportingContext reporting = ReportingContext.of(result);
+        if (reporting == null) return;
+        recordFinish(result, reporting, "SKIPPED");
+        ReporterClient client = reporting.client();
+        String runId = reporting.runId();
+        String testCaseId = reporting.testCaseId();
         if (client != null && runId != null && testCaseId != null) {
             client.finishTestCase(runId, testCaseId, "SKIPPED");
         }
     }
 
     @Override
-    public void onFinish(ITestContext context) {
-        ReporterClient client = (ReporterClient) context.getAttribute("reporterClient");
-        String runId = (String) context.getAttribute("runId");
-        if (client != null && runId != null) {
-            String finalStatus = failedCount.get() > 0 ? "FAILED" : "PASSED";
-            System.out.println("[ReporterListener] onFinish: finishing runId=" + runId);
-            System.out.println("Execution finished - " + finalStatus);
-            client.finishRun(runId, finalStatus);
+    public void onFinish(ISuite suite) {
+        stopSummaryPublisher();
+        ReporterClient client = runClient;
+        if (client != null && !summaries.isEmpty()) {
+            // Drain queued test-case events first so the run is not closed ahead of them
+            client.flush(FLUSH_TIMEOUT);
+            summaries.forEach((runId, summary) -> {
+                String finalStatus = summary.failed() > 0 ? "FAILED" : "PASSED";
+                LOG.info("Execution finished - " + finalStatus + " (runId=" + runId + ")");
+                // Overwrites whatever the per-test events left in the run's counters
+                publishSummary(runId, true);
+                client.finishRun(runId, finalStatus);
+            });
+        }
+        DurationHistory.shared().save();
+        DriverPool pool = DriverPool.sharedIfStarted();
+        if (pool != null) {
+            LOG.info("Driver pool: " + pool.metrics());
+        }
+        ReporterTransport transport = ReporterTransport.sharedIfStarted();
+        if (transport != null) {
+            LOG.info("Reporter transport: " + transport.metrics());
+        }
+        String compression = RequestCompression.summary();
+        if (compression != null) {
+            LOG.info("Request compression: " + compression);
+        }
+        String waits = PageWait.summary();
+        if (waits != null) {
+            LOG.info("Page waits: " + waits);
         }
+        LOG.info("Framework overhead: " + ReporterMetrics.summary());
+        ReporterMetrics.write(summaries.values().stream().mapToLong(RunSummary::durationMillis).sum());
+        // Those runs are closed; another suite in this JVM starts its own
+        summaries.clear();
+        published.clear();
+        reportedFailures.clear();
+        ReporterLog.flush();
     }
 }
@@ -0,0 +1,161 @@
+package com.example.reporting;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Drives {@link ReporterClient} the way concurrent suites would, to find how much load a
+ * reporter backend absorbs and what the client itself costs.
+ * <p>
+ * {@code load.runs} (4) runs execute concurrently, each reporting {@code load.testCases} (25)
+ * test cases of {@code load.steps} (10) steps one after another, as one test thread would.
+ * {@code load.screenshotRate} (0.2) of the steps carry a random screenshot of
+ * {@code load.screenshotKb} (100) KB, and {@code load.failureRate} (0.1) of the test cases fail
+ * with a stack trace and a screenshot. Without {@code load.baseUrl} the load goes to an
+ * embedded {@link StubReporterServer#startInMemory() in-memory stub}, so the numbers are the
+ * client's own overhead plus a loopback round trip. The usual {@code reporter.*} properties
+ * (async, batching, streaming, compression) apply.
+ * <p>
+ * The report lists what each client call cost the calling thread and, per backend route, the
+ * request count, failed attempts and p50/p99 latency.
+ * <pre>
+ * mvn -Pload test-compile exec:exec -Dload.args="-Dload.runs=20 -Dreporter.async=true"
+ * </pre>
+ */
+public final class ReporterLoadGenerator {
+    private static final String[] OPERATIONS = {"startRun", "startTestCase", "logStep", "logError", "finishTestCase",
+            "flush", "finishRun"};
+
+    private final int runs = Integer.getInteger("load.runs", 4);
+    private final int testCases = Integer.getInteger("load.testCases", 25);
+    private final int steps = Integer.getInteger("load.steps", 10);
+    private final int screenshotBytes = Integer.getInteger("load.screenshotKb", 100) * 1024;
+    private final double screenshotRate = Double.parseDouble(System.getProperty("load.screenshotRate", "0.2"));
+    private final double failureRate = Double.parseDouble(System.getProperty("load.failureRate", "0.1"));
+    private final long seed = Long.getLong("load.seed", 42);
+    private final String token = System.getProperty("load.token", "load-test");
+    private final Map<String, LatencyHistogram> calls = new LinkedHashMap<>();
+
+    private ReporterLoadGenerator() {
+        for (String operation : OPERATIONS) {
+            calls.put(operation, new LatencyHistogram(operation, operation));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("load.baseUrl");
+        StubReporterServer stub = baseUrl == null ? StubReporterServer.startInMemory() : null;
+        try {
+            new ReporterLoadGenerator().run(stub != null ? stub.baseUrl() : baseUrl, stub);
+        } finally {
+            if (stub != null) stub.close();
+            ReporterLog.flush();
+        }
+    }
+
+    private void run(String baseUrl, StubReporterServer stub) throws Exception {
+        System.out.printf(Locale.ROOT, "%d runs x %d test cases x %d steps against %s%n", runs, testCases, steps,
+                stub != null ? "the in-memory stub" : baseUrl);
+        long start = System.nanoTime();
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < runs; i++) {
+                Random random = new Random(seed + i);
+                futures.add(executor.submit(() -> {
+                    simulateRun(new ReporterClient(baseUrl, token), random);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(seconds, stub);
+    }
+
+    private void simulateRun(ReporterClient client, Random random) {
+        String runId = UUID.randomUUID().toString();
+        time("startRun", () -> client.startRunWithTags(runId, "chrome", new String[]{"load"}));
+        for (int t = 0; t < testCases; t++) {
+            String testCaseId = UUID.randomUUID().toString();
+            String testName = "loadTest" + t;
+            time("startTestCase", () -> client.startTestCase(runId, testCaseId, testName, List.of("load")));
+            for (int s = 0; s < steps; s++) {
+                byte[] screenshot = random.nextDouble() < screenshotRate ? screenshot(random) : null;
+                String stepName = "Step " + s;
+                time("logStep", () -> client.logStepWithImage(runId, testCaseId, stepName, "PASS", screenshot, null));
+            }
+            if (random.nextDouble() < failureRate) {
+                byte[] screenshot = screenshot(random);
+                Throwable failure = new AssertionError("Load failure in " + testName);
+                time("logError", () -> client.logTestCaseErrorWithImage(runId, testCaseId, testName,
+                        FailureFingerprint.trace(failure), screenshot));
+                time("finishTestCase", () -> client.finishTestCase(runId, testCaseId, "FAIL"));
+            } else {
+                time("finishTestCase", () -> client.finishTestCase(runId, testCaseId, "PASS"));
+            }
+        }
+        time("flush", () -> client.flush(Duration.ofSeconds(60)));
+        time("finishRun", () -> client.finishRun(runId, "PASSED"));
+    }
+
+    // Random bytes behind a PNG signature: unique, so every one is uploaded, and incompressible like real captures
+    private byte[] screenshot(Random random) {
+        if (screenshotBytes <= 0) return null;
+        byte[] image = new byte[screenshotBytes];
+        random.nextBytes(image);
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+        System.arraycopy(signature, 0, image, 0, Math.min(signature.length, image.length));
+        return image;
+    }
+
+    private void time(String operation, Runnable call) {
+        long start = System.nanoTime();
+        call.run();
+        calls.get(operation).recordSince(start);
+    }
+
+    private void report(double seconds, StubReporterServer stub) {
+        long requests = ReporterMetrics.endpoints().values().stream().mapToLong(e -> e.latency().snapshot().count()).sum();
+        System.out.printf(Locale.ROOT, "%nFinished in %.1fs: %d requests (%.0f/s), %d KB sent%n", seconds, requests,
+                requests / seconds, ReporterMetrics.BYTES_SENT.sum() / 1024);
+        if (stub != null) {
+            System.out.printf(Locale.ROOT, "Stub applied %d test case events for %d runs%n", stub.events(), stub.runs());
+        }
+
+        System.out.printf(Locale.ROOT, "%nClient calls (time on the calling thread)%n%-16s %9s %10s %10s %10s%n",
+                "call", "count", "p50 ms", "p99 ms", "max ms");
+        calls.forEach((operation, histogram) -> {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            if (s.count() == 0) return;
+            System.out.printf(Locale.ROOT, "%-16s %9d %10.2f %10.2f %10.2f%n", operation, s.count(),
+                    s.p50() / 1000.0, s.p99() / 1000.0, s.maxMicros() / 1000.0);
+        });
+
+        System.out.printf(Locale.ROOT, "%nBackend routes (per attempt)%n%-52s %9s %8s %10s %10s%n",
+                "route", "count", "errors", "p50 ms", "p99 ms");
+        ReporterMetrics.endpoints().forEach((route, endpoint) -> {
+            LatencyHistogram.Snapshot s = endpoint.latency().snapshot();
+            long failures = endpoint.failures().sum();
+            System.out.printf(Locale.ROOT, "%-52s %9d %7.2f%% %10.2f %10.2f%n", route, s.count(),
+                    s.count() == 0 ? 0.0 : 100.0 * failures / s.count(), s.p50() / 1000.0, s.p99() / 1000.0);
+        });
+        AsyncEventDispatcher dispatcher = AsyncEventDispatcher.sharedIfStarted();
+        if (dispatcher != null) {
+            System.out.printf(Locale.ROOT, "%nQueue wait p99 %.2f ms%n",
+                    ReporterMetrics.QUEUE_WAIT.snapshot().p99() / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.reporting;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Minimal level-gated logger for the reporting code.
+ * <p>
+ * The threshold comes from {@code -Dreporter.log.level} ({@code DEBUG}, {@code INFO}
+ * by default, {@code WARN}, {@code ERROR} or {@code OFF}). Messages below it cost one
+ * comparison; pass a {@link Supplier} when building the message is itself expensive.
+ * Records are handed to a single daemon thread that writes them to {@code System.out}
+ * (DEBUG and INFO) or {@code System.err} (WARN and ERROR), so test threads never contend
+ * on the console; {@code -Dreporter.log.async=false} writes on the calling thread instead.
+ */
+public final class ReporterLog {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final Level THRESHOLD = parse(System.getProperty("reporter.log.level"));
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+    private static final AsyncAppender APPENDER = Boolean.parseBoolean(System.getProperty("reporter.log.async", "true"))
+            ? new AsyncAppender(Integer.getInteger("reporter.log.queueCapacity", 8192))
+            : null;
+
+    private final String prefix;
+
+    private ReporterLog(String name) {
+        this.prefix = "[" + name + "] ";
+    }
+
+    public static ReporterLog get(String name) {
+        return new ReporterLog(name);
+    }
+
+    private static Level parse(String value) {
+        if (value == null || value.isBlank()) return Level.INFO;
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level != Level.OFF && level.compareTo(THRESHOLD) >= 0;
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isEnabled(Level.DEBUG)) emit(Level.DEBUG, message.get(), null);
+    }
+
+    public void info(String message) {
+        if (isEnabled(Level.INFO)) emit(Level.INFO, message, null);
+    }
+
+    public void info(Supplier<String> message) {
+        if (isEnabled(Level.INFO)) emit(Level.INFO, message.get(), null);
+    }
+
+    public void warn(String message) {
+        if (isEnabled(Level.WARN)) emit(Level.WARN, message, null);
+    }
+
+    public void warn(String message, Throwable error) {
+        if (isEnabled(Level.WARN)) emit(Level.WARN, message, error);
+    }
+
+    public void error(String message) {
+        if (isEnabled(Level.ERROR)) emit(Level.ERROR, message, null);
+    }
+
+    public void error(String message, Throwable error) {
+        if (isEnabled(Level.ERROR)) emit(Level.ERROR, message, error);
+    }
+
+    private void emit(Level level, String message, Throwable error) {
+        Record record = new Record(System.currentTimeMillis(), Thread.currentThread().getName(),
+                level, prefix + message, error);
+        if (APPENDER == null || !APPENDER.offer(record)) {
+            record.writeTo();
+        }
+    }
+
+    /**
+     * Waits briefly for queued records to be written, e.g. before the JVM exits.
+     */
+    public static void flush() {
+        if (APPENDER != null) APPENDER.drain(TimeUnit.SECONDS.toMillis(2));
+    }
+
+    private record Record(long timestamp, String thread, Level level, String message, Throwable error) {
+        void writeTo() {
+            PrintStream out = level.compareTo(Level.WARN) >= 0 ? System.err : System.out;
+            String time = LocalTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()).format(TIME);
+            out.println(time + " " + level + " " + thread + " " + message);
+            if (error != null) error.printStackTrace(out);
+        }
+    }
+
+    private static final class AsyncAppender {
+        private final BlockingQueue<Record> queue;
+
+        AsyncAppender(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            Thread writer = new Thread(this::run, "reporter-log");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> drain(2000), "reporter-log-flush"));
+        }
+
+        // A full queue makes the caller write synchronously rather than lose the record
+        boolean offer(Record record) {
+            return queue.offer(record);
+        }
+
+        private void run() {
+            while (true) {
+                try {
+                    queue.take().writeTo();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    // Never let a bad record stop the writer
+                }
+            }
+        }
+
+        void drain(long timeoutMillis) {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
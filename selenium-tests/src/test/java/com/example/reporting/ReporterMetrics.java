@@ -0,0 +1,223 @@
+package com.example.reporting;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency histograms and counters for the framework's own overhead: reporter
+ * HTTP requests, screenshot capture, browser startup and quit, and time events wait in the
+ * async queue. Request latency and errors are also kept per endpoint, keyed by the route
+ * with IDs replaced by placeholders, e.g. {@code POST /runs/:runId/test-cases/:testCaseId/step}.
+ * <p>
+ * {@link ReporterListener} writes them at suite end as JSON to {@code reporter.metrics.file}
+ * (default {@code target/reporter-metrics.json}) next to the total test time, and in
+ * Prometheus text format to {@code reporter.metrics.prometheusFile} when set, e.g. for the
+ * node exporter's textfile collector. {@code -Dreporter.metrics=false} skips both files;
+ * recording itself is always on since it costs a few atomic increments.
+ */
+public final class ReporterMetrics {
+    private static final ReporterLog LOG = ReporterLog.get("ReporterMetrics");
+
+    static final LatencyHistogram HTTP_SEND = new LatencyHistogram("http_send",
+            "Reporter HTTP request latency per attempt");
+    static final LatencyHistogram SCREENSHOT = new LatencyHistogram("screenshot_capture",
+            "WebDriver screenshot capture latency");
+    static final LatencyHistogram DRIVER_START = new LatencyHistogram("driver_start",
+            "Browser session startup latency");
+    static final LatencyHistogram DRIVER_QUIT = new LatencyHistogram("driver_quit",
+            "Browser session quit latency");
+    static final LatencyHistogram QUEUE_WAIT = new LatencyHistogram("queue_wait",
+            "Time reporter events wait in the async queue before being sent");
+    private static final List<LatencyHistogram> HISTOGRAMS = List.of(HTTP_SEND, SCREENSHOT, DRIVER_START,
+            DRIVER_QUIT, QUEUE_WAIT);
+
+    static final LongAdder BYTES_SENT = new LongAdder();
+    static final LongAdder FAILED_REQUESTS = new LongAdder();
+
+    /**
+     * Latency and failed attempts of one route.
+     */
+    record Endpoint(LatencyHistogram latency, LongAdder failures) {
+    }
+
+    private static final Map<String, Endpoint> ENDPOINTS = new ConcurrentHashMap<>();
+
+    private ReporterMetrics() {
+    }
+
+    /**
+     * Records one request attempt against its route; {@code failed} covers transport errors
+     * and error statuses.
+     */
+    static void recordRequest(String method, URI uri, long startNanos, boolean failed) {
+        long nanos = System.nanoTime() - startNanos;
+        HTTP_SEND.recordNanos(nanos);
+        if (failed) FAILED_REQUESTS.increment();
+        String route = method + " " + route(uri.getPath());
+        Endpoint endpoint = ENDPOINTS.computeIfAbsent(route, k -> new Endpoint(new LatencyHistogram(k, k), new LongAdder()));
+        endpoint.latency().recordNanos(nanos);
+        if (failed) endpoint.failures().increment();
+    }
+
+    /**
+     * Per-route request stats, sorted by route.
+     */
+    static Map<String, Endpoint> endpoints() {
+        return new TreeMap<>(ENDPOINTS);
+    }
+
+    // "/api/executions/runs/R1/test-cases/T1/step" -> "/runs/:runId/test-cases/:testCaseId/step"
+    static String route(String path) {
+        String[] segments = path.startsWith("/api/executions/")
+                ? path.substring("/api/executions/".length()).split("/")
+                : path.replaceFirst("^/", "").split("/");
+        StringBuilder route = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            String previous = i > 0 ? segments[i - 1] : "";
+            if ("runs".equals(previous) && !"start".equals(segment)) {
+                segment = ":runId";
+            } else if ("test-cases".equals(previous) && !"start".equals(segment)) {
+                segment = ":testCaseId";
+            } else if ("artifacts".equals(previous)) {
+                segment = ":sha256";
+            }
+            route.append('/').append(segment);
+        }
+        return route.toString();
+    }
+
+    /**
+     * One log line with the count and p50/p99 of each histogram that saw values.
+     */
+    public static String summary() {
+        StringBuilder line = new StringBuilder();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            if (s.count() == 0) continue;
+            if (line.length() > 0) line.append(", ");
+            line.append(histogram.name()).append(" n=").append(s.count())
+                    .append(" p50=").append(millis(s.p50())).append("ms")
+                    .append(" p99=").append(millis(s.p99())).append("ms");
+        }
+        if (line.length() > 0) line.append(", ");
+        return line.append("bytesSent=").append(BYTES_SENT.sum())
+                .append(", failedRequests=").append(FAILED_REQUESTS.sum()).toString();
+    }
+
+    /**
+     * Writes the configured report files; {@code testMillis} is the summed duration of all tests.
+     */
+    static void write(long testMillis) {
+        if (!Boolean.parseBoolean(System.getProperty("reporter.metrics", "true"))) return;
+        Path json = Paths.get(System.getProperty("reporter.metrics.file", "target/reporter-metrics.json"));
+        writeAtomically(json, json(testMillis));
+        String prometheus = System.getProperty("reporter.metrics.prometheusFile");
+        if (prometheus != null && !prometheus.isBlank()) {
+            writeAtomically(Paths.get(prometheus), prometheus(testMillis).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] json(long testMillis) {
+        JsonBuffer out = new JsonBuffer();
+        out.beginObject().field("testTimeMs", testMillis).name("histograms").beginObject();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            out.name(histogram.name()).beginObject()
+                    .field("count", s.count())
+                    .field("sumUs", s.sumMicros())
+                    .field("maxUs", s.maxMicros())
+                    .field("p50Us", s.p50())
+                    .field("p90Us", s.p90())
+                    .field("p99Us", s.p99())
+                    .field("p999Us", s.p999())
+                    .endObject();
+        }
+        out.endObject().name("endpoints").beginObject();
+        endpoints().forEach((route, endpoint) -> {
+            LatencyHistogram.Snapshot s = endpoint.latency().snapshot();
+            out.name(route).beginObject()
+                    .field("count", s.count())
+                    .field("failures", endpoint.failures().sum())
+                    .field("p50Us", s.p50())
+                    .field("p99Us", s.p99())
+                    .field("maxUs", s.maxMicros())
+                    .endObject();
+        });
+        out.endObject().name("counters").beginObject()
+                .field("bytesSent", BYTES_SENT.sum())
+                .field("failedRequests", FAILED_REQUESTS.sum())
+                .endObject().endObject();
+        byte[] bytes = new byte[out.size()];
+        System.arraycopy(out.array(), 0, bytes, 0, out.size());
+        return bytes;
+    }
+
+    // Summaries rather than histograms: the quantiles are what the buckets were kept for
+    private static String prometheus(long testMillis) {
+        StringBuilder text = new StringBuilder(2048);
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            LatencyHistogram.Snapshot s = histogram.snapshot();
+            String metric = "reporter_" + histogram.name() + "_seconds";
+            text.append("# HELP ").append(metric).append(' ').append(histogram.help()).append('\n')
+                    .append("# TYPE ").append(metric).append(" summary\n");
+            quantile(text, metric, "0.5", s.p50());
+            quantile(text, metric, "0.9", s.p90());
+            quantile(text, metric, "0.99", s.p99());
+            quantile(text, metric, "0.999", s.p999());
+            text.append(metric).append("_sum ").append(seconds(s.sumMicros())).append('\n')
+                    .append(metric).append("_count ").append(s.count()).append('\n');
+        }
+        counter(text, "reporter_bytes_sent_total", "Reporter request body bytes sent", BYTES_SENT.sum());
+        counter(text, "reporter_failed_requests_total", "Reporter requests that failed or were answered with an error",
+                FAILED_REQUESTS.sum());
+        text.append("# HELP reporter_test_time_seconds Summed duration of all tests in the run\n")
+                .append("# TYPE reporter_test_time_seconds gauge\n")
+                .append("reporter_test_time_seconds ").append(seconds(testMillis * 1000)).append('\n');
+        return text.toString();
+    }
+
+    private static void quantile(StringBuilder text, String metric, String quantile, long micros) {
+        text.append(metric).append("{quantile=\"").append(quantile).append("\"} ").append(seconds(micros)).append('\n');
+    }
+
+    private static void counter(StringBuilder text, String metric, String help, long value) {
+        text.append("# HELP ").append(metric).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(metric).append(" counter\n")
+                .append(metric).append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1_000_000.0);
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+    }
+
+    private static void writeAtomically(Path file, byte[] content) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "reporter-metrics", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                out.write(content);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Could not write reporter metrics to " + file + ": " + e.getMessage());
+        }
+    }
+}
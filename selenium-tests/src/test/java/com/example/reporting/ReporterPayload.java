@@ -0,0 +1,127 @@
+package com.example.reporting;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed request bodies for the reporter API, encoded straight into a {@link JsonBuffer}.
+ * <p>
+ * {@code redacted} encodings replace inline screenshots with a placeholder; they are
+ * what gets logged, written from the same record instead of a copy of the body.
+ */
+sealed interface ReporterPayload {
+    String REDACTED_SCREENSHOT = "[BASE64_IMAGE]";
+
+    void writeTo(JsonBuffer out, boolean redacted);
+
+    private static String screenshot(String base64, boolean redacted) {
+        return redacted && base64 != null ? REDACTED_SCREENSHOT : base64;
+    }
+
+    record RunStart(String runId, String browser, List<String> tags) implements ReporterPayload {
+        @Override
+        public void writeTo(JsonBuffer out, boolean redacted) {
+            out.beginObject()
+                    .field("runId", runId)
+                    .field("browser", browser)
+                    .field("tags", tags)
+                    .endObject();
+        }
+    }
+
+    record TestCaseStart(String testCaseId, String testName, List<String> tags) implements ReporterPayload {
+        @Override
+        public void writeTo(JsonBuffer out, boolean redacted) {
+            out.beginObject()
+                    .field("testCaseId", testCaseId)
+                    .field("testName", testName)
+                    .field("tags", tags)
+                    .endObject();
+        }
+    }
+
+    record Step(String stepName, String status, String screenshot, String screenshotHash, String error)
+            implements ReporterPayload {
+        @Override
+        public void writeTo(JsonBuffer out, boolean redacted) {
+            out.beginObject()
+                    .field("stepName", stepName)
+                    .field("status", status)
+                    .field("screenshot", ReporterPayload.screenshot(screenshot, redacted))
+                    .field("screenshotHash", screenshotHash)
+                    .field("error", error)
+                    .endObject();
+        }
+    }
+
+    /**
+     * A failure with a {@code fingerprint} carries the full {@code error} trace only the first
+     * time that fingerprint is reported in a run; later ones send just their {@code headline}.
+     */
+    record TestCaseError(String stepName, String error, String screenshot, String screenshotHash,
+                         String fingerprint, String headline) implements ReporterPayload {
+        TestCaseError(String stepName, String error, String screenshot, String screenshotHash) {
+            this(stepName, error, screenshot, screenshotHash, null, null);
+        }
+
+        @Override
+        public void writeTo(JsonBuffer out, boolean redacted) {
+            out.beginObject()
+                    .field("stepName", stepName)
+                    .field("error", error)
+                    .field("screenshot", ReporterPayload.screenshot(screenshot, redacted))
+                    .field("screenshotHash", screenshotHash)
+                    .field("fingerprint", fingerprint)
+                    .field("errorHeadline", headline)
+                    .endObject();
+        }
+    }
+
+    /**
+     * Body of both the test case and the run finish calls.
+     */
+    record Finish(String status) implements ReporterPayload {
+        @Override
+        public void writeTo(JsonBuffer out, boolean redacted) {
+            out.beginObject().field("status", status).endObject();
+        }
+    }
+
+    /**
+     * Cumulative run counts; each one replaces the previous, so {@code sequence} lets the
+     * backend ignore a snapshot that arrives after a newer one.
+     */
+    record Summary(long sequence, Counts total, Map<String, Counts> byTag, Map<String, Counts> byClass)
+            implements ReporterPayload {
+        record Counts(long started, long passed, long failed, long skipped, long durationMillis, long maxDurationMillis) {
+            void writeTo(JsonBuffer out) {
+                out.beginObject()
+                        .field("started", started)
+                        .field("passed", passed)
+                        .field("failed", failed)
+                        .field("skipped", skipped)
+                        .field("durationMs", durationMillis)
+                        .field("maxDurationMs", maxDurationMillis)
+                        .endObject();
+            }
+        }
+
+        @Override
+        public void writeTo(JsonBuffer out, boolean redacted) {
+            out.beginObject().field("sequence", sequence).name("total");
+            total.writeTo(out);
+            writeBreakdown(out, "byTag", byTag);
+            writeBreakdown(out, "byClass", byClass);
+            out.endObject();
+        }
+
+        private static void writeBreakdown(JsonBuffer out, String name, Map<String, Counts> counts) {
+            out.name(name).beginObject();
+            counts.forEach((key, value) -> {
+                out.name(key);
+                value.writeTo(out);
+            });
+            out.endObject();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.reporting;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The one {@link HttpClient} every reporter request goes through, so keep-alive connections,
+ * TLS sessions and the client's selector thread are shared by all {@link ReporterClient}s
+ * instead of being rebuilt per test.
+ * <p>
+ * HTTPS backends are offered HTTP/2 (negotiated via ALPN, else HTTP/1.1). Plain-HTTP requests
+ * stay on HTTP/1.1 unless {@code -Dreporter.http.h2c=true}, because the cleartext upgrade
+ * handshake is not understood by every server. The client runs on virtual threads with
+ * {@code reporter.virtualThreads}, on a fixed pool with {@code reporter.http.threads}, and
+ * on the JDK's default pool otherwise. Pool sizing itself is the JDK's
+ * ({@code jdk.httpclient.connectionPoolSize}, {@code jdk.httpclient.keepalive.timeout}).
+ */
+public final class ReporterTransport {
+    private static final ReporterLog LOG = ReporterLog.get("ReporterTransport");
+    private static volatile ReporterTransport shared;
+
+    private final HttpClient client;
+    private final boolean h2c;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder http2Responses = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder connectionsLost = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAccumulator peakInFlight = new LongAccumulator(Math::max, 0);
+
+    ReporterTransport(HttpClient client, boolean h2c) {
+        this.client = client;
+        this.h2c = h2c;
+    }
+
+    public static ReporterTransport shared() {
+        ReporterTransport transport = shared;
+        if (transport == null) {
+            synchronized (ReporterTransport.class) {
+                transport = shared;
+                if (transport == null) {
+                    HttpClient.Builder builder = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_2)
+                            .connectTimeout(Duration.ofMillis(Long.getLong("reporter.http.connectTimeoutMs", 5000)));
+                    ExecutorService executor = executor();
+                    if (executor != null) builder.executor(executor);
+                    transport = new ReporterTransport(builder.build(), Boolean.getBoolean("reporter.http.h2c"));
+                    shared = transport;
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Returns the shared transport if one was created, or {@code null}.
+     */
+    static ReporterTransport sharedIfStarted() {
+        return shared;
+    }
+
+    private static ExecutorService executor() {
+        if (VirtualThreads.enabled()) return VirtualThreads.newPerTaskExecutor();
+        int threads = Integer.getInteger("reporter.http.threads", 0);
+        if (threads <= 0) return null;
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "reporter-http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A request builder for {@code uri} with the protocol version this transport uses for it.
+     */
+    HttpRequest.Builder request(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(uri);
+        if (!h2c && "http".equalsIgnoreCase(uri.getScheme())) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        return builder;
+    }
+
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        long start = started(request);
+        return client.sendAsync(request, handler)
+                .whenComplete((response, error) -> finished(request, start, response, error));
+    }
+
+    <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        long start = started(request);
+        HttpResponse<T> response = null;
+        Throwable error = null;
+        try {
+            response = client.send(request, handler);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            finished(request, start, response, error);
+        }
+    }
+
+    private long started(HttpRequest request) {
+        requests.increment();
+        peakInFlight.accumulate(inFlight.incrementAndGet());
+        // Streamed bodies have no length up front; EventStream counts those as it writes
+        long length = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+        if (length > 0) ReporterMetrics.BYTES_SENT.add(length);
+        return System.nanoTime();
+    }
+
+    private void finished(HttpRequest request, long start, HttpResponse<?> response, Throwable error) {
+        inFlight.decrementAndGet();
+        ReporterMetrics.recordRequest(request.method(), request.uri(), start, response == null || response.statusCode() >= 400);
+        if (response != null) {
+            if (response.version() == HttpClient.Version.HTTP_2) http2Responses.increment();
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) {
+            connectFailures.increment();
+        } else if (cause instanceof HttpTimeoutException) {
+            timeouts.increment();
+        } else if (cause instanceof IOException) {
+            // Reset or closed mid-request; the pool has to open a new connection for the next one
+            connectionsLost.increment();
+            LOG.debug(() -> "Connection lost: " + cause);
+        }
+    }
+
+    public Metrics metrics() {
+        return new Metrics(requests.sum(), http2Responses.sum(), connectFailures.sum(), connectionsLost.sum(),
+                timeouts.sum(), inFlight.get(), peakInFlight.get());
+    }
+
+    /**
+     * The JDK client does not expose its pool, so connection churn is inferred from failures:
+     * every connect failure or lost connection means a reconnect. {@code peakInFlight} is the
+     * most connections an HTTP/1.1 backend needed at once.
+     */
+    public record Metrics(long requests, long http2Responses, long connectFailures, long connectionsLost,
+                          long timeouts, int inFlight, long peakInFlight) {
+        public long reconnects() {
+            return connectFailures + connectionsLost;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests=%d, http2=%d, reconnects=%d (connect failures=%d, lost=%d), timeouts=%d, "
+                            + "inFlight=%d, peakInFlight=%d",
+                    requests, http2Responses, reconnects(), connectFailures, connectionsLost, timeouts,
+                    inFlight, peakInFlight);
+        }
+    }
+}
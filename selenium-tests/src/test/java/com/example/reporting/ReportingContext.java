@@ -0,0 +1,137 @@
+package com.example.reporting;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.ITestResult;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reporting state for one test method invocation.
+ * <p>
+ * {@link BaseTest} binds a context to the test thread in {@code @BeforeMethod};
+ * {@link ReporterListener} assigns the test case identity in {@code onTestStart} and
+ * also stores the context on the {@link ITestResult}, so every callback for an
+ * invocation sees the same instance no matter how many methods run in parallel.
+ */
+public final class ReportingContext {
+    static final String ATTRIBUTE = "reportingContext";
+    private static final ThreadLocal<ReportingContext> CURRENT = new ThreadLocal<>();
+
+    private final String runId;
+    private final String executionId;
+    private final String browser;
+    private final WebDriver driver;
+    private final ReporterClient client;
+    private final ScreenshotPolicy screenshotPolicy;
+    private final NetworkMonitor network;
+    private volatile String testCaseId;
+    private volatile List<String> tags = List.of();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitedMillis = new LongAdder();
+    private final LongAdder waitSavedMillis = new LongAdder();
+
+    ReportingContext(String runId, String executionId, String browser, WebDriver driver,
+                     ReporterClient client, ScreenshotPolicy screenshotPolicy, NetworkMonitor network) {
+        this.runId = runId;
+        this.executionId = executionId;
+        this.browser = browser;
+        this.driver = driver;
+        this.client = client;
+        this.screenshotPolicy = screenshotPolicy;
+        this.network = network;
+    }
+
+    /**
+     * Returns the context bound to the calling test thread.
+     *
+     * @throws IllegalStateException when called outside a test method invocation
+     */
+    public static ReportingContext current() {
+        ReportingContext context = CURRENT.get();
+        if (context == null) {
+            throw new IllegalStateException("No reporting context bound to " + Thread.currentThread().getName());
+        }
+        return context;
+    }
+
+    static ReportingContext currentOrNull() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Returns the context for a result, falling back to the calling thread's binding.
+     */
+    static ReportingContext of(ITestResult result) {
+        Object attribute = result.getAttribute(ATTRIBUTE);
+        return attribute instanceof ReportingContext ? (ReportingContext) attribute : CURRENT.get();
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    void startTestCase(String testCaseId, List<String> tags) {
+        this.testCaseId = testCaseId;
+        this.tags = List.copyOf(tags);
+    }
+
+    void recordWait(long waitedMillis, long savedMillis) {
+        waits.increment();
+        this.waitedMillis.add(waitedMillis);
+        waitSavedMillis.add(savedMillis);
+    }
+
+    /**
+     * This invocation's {@link PageWait} totals for the log, or {@code null} when it did not wait.
+     */
+    String waitSummary() {
+        long count = waits.sum();
+        if (count == 0) return null;
+        return count + " waits, " + waitedMillis.sum() + "ms waited, ~" + waitSavedMillis.sum()
+                + "ms saved vs 500ms polling";
+    }
+
+    public String runId() {
+        return runId;
+    }
+
+    public String testCaseId() {
+        return testCaseId;
+    }
+
+    public List<String> tags() {
+        return tags;
+    }
+
+    public String executionId() {
+        return executionId;
+    }
+
+    public String browser() {
+        return browser;
+    }
+
+    public WebDriver driver() {
+        return driver;
+    }
+
+    public ReporterClient client() {
+        return client;
+    }
+
+    public ScreenshotPolicy screenshotPolicy() {
+        return screenshotPolicy;
+    }
+
+    /**
+     * The suite's {@link NetworkProfile} as applied to this invocation's session, or {@code null}.
+     */
+    NetworkMonitor network() {
+        return network;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.reporting;
+
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Optional gzip request bodies, enabled with {@code -Dreporter.compression=gzip}.
+ * <p>
+ * Bodies below {@code reporter.compression.minBytes} (1024) are sent as is, since the
+ * headers and CPU cost more than the few bytes saved. Each thread reuses its own
+ * {@link Deflater} and output buffer, mirroring {@link JsonBuffer}. Stack traces and
+ * base64 screenshots are where this pays off; screenshot uploads are PNGs already and are
+ * never compressed again.
+ */
+final class RequestCompression {
+    static final boolean ENABLED = "gzip".equalsIgnoreCase(System.getProperty("reporter.compression", "none"));
+    private static final int MIN_BYTES = Integer.getInteger("reporter.compression.minBytes", 1024);
+    private static final int LEVEL = Integer.getInteger("reporter.compression.level", Deflater.DEFAULT_COMPRESSION);
+    private static final int RETAINED_CAPACITY = 256 * 1024;
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final ThreadLocal<RequestCompression> LOCAL = ThreadLocal.withInitial(RequestCompression::new);
+    private static final LongAdder rawBytes = new LongAdder();
+    private static final LongAdder sentBytes = new LongAdder();
+
+    // Raw deflate; the gzip header and trailer are written by hand
+    private final Deflater deflater = new Deflater(LEVEL, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] out = new byte[8192];
+    private int size;
+
+    /**
+     * The body publisher for a JSON body, gzipped (and the header set) when enabled and worth it.
+     *
+     * @param retained whether the request may be sent after this thread moves on, in which case
+     *                 the compressed bytes are copied out of the thread's buffer
+     */
+    static HttpRequest.BodyPublisher publisher(HttpRequest.Builder builder, byte[] body, int offset, int length,
+                                               boolean retained) {
+        if (ENABLED && length >= MIN_BYTES) {
+            RequestCompression gzip = LOCAL.get().encode(body, offset, length);
+            // Already-compressed content can come out larger
+            if (gzip.size < length) {
+                rawBytes.add(length);
+                sentBytes.add(gzip.size);
+                builder.header("Content-Encoding", "gzip");
+                return retained
+                        ? HttpRequest.BodyPublishers.ofByteArray(Arrays.copyOf(gzip.out, gzip.size))
+                        : HttpRequest.BodyPublishers.ofByteArray(gzip.out, 0, gzip.size);
+            }
+        }
+        if (ENABLED) {
+            rawBytes.add(length);
+            sentBytes.add(length);
+        }
+        return HttpRequest.BodyPublishers.ofByteArray(body, offset, length);
+    }
+
+    /**
+     * Request body bytes before and after compression, or {@code null} when disabled.
+     */
+    static String summary() {
+        if (!ENABLED) return null;
+        long raw = rawBytes.sum();
+        long sent = sentBytes.sum();
+        return String.format("%d KB -> %d KB (%.0f%% saved)", raw / 1024, sent / 1024,
+                raw == 0 ? 0.0 : 100.0 * (raw - sent) / raw);
+    }
+
+    private RequestCompression encode(byte[] body, int offset, int length) {
+        if (out.length > RETAINED_CAPACITY) out = new byte[8192];
+        size = 0;
+        put(HEADER, HEADER.length);
+        deflater.reset();
+        deflater.setInput(body, offset, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (size == out.length) out = Arrays.copyOf(out, out.length * 2);
+            size += deflater.deflate(out, size, out.length - size);
+        }
+        crc.reset();
+        crc.update(body, offset, length);
+        ensure(8);
+        writeIntLE((int) crc.getValue());
+        writeIntLE(length);
+        return this;
+    }
+
+    private void put(byte[] bytes, int length) {
+        ensure(length);
+        System.arraycopy(bytes, 0, out, size, length);
+        size += length;
+    }
+
+    private void writeIntLE(int value) {
+        out[size++] = (byte) value;
+        out[size++] = (byte) (value >>> 8);
+        out[size++] = (byte) (value >>> 16);
+        out[size++] = (byte) (value >>> 24);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, size + extra));
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.reporting;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends reporter requests through a {@link RetryPolicy} and the shared {@link CircuitBreaker}.
+ * <p>
+ * Transport errors and retryable statuses are retried with backoff; while the breaker is
+ * open requests are not attempted at all and come back as {@link Outcome#SHORT_CIRCUITED}
+ * so the caller can park them instead of waiting on timeouts. Callers must make their
+ * requests safe to repeat, which for event posts means an {@code Idempotency-Key} header.
+ * A 401 is retried once with a renewed token from {@link TokenProvider#reauthorize}.
+ */
+final class ResilientSender {
+    enum Outcome {
+        /** Accepted by the backend. */
+        DELIVERED,
+        /** Answered with a non-retryable error; sending again will not help. */
+        REJECTED,
+        /** Still failing after the last attempt. */
+        FAILED,
+        /** Not attempted because the circuit breaker is open. */
+        SHORT_CIRCUITED
+    }
+
+    record Result<T>(Outcome outcome, HttpResponse<T> response, Throwable error) {
+        /** Whether the event is done with, successfully or not, and must not be sent again. */
+        boolean settled() {
+            return outcome == Outcome.DELIVERED || outcome == Outcome.REJECTED;
+        }
+
+        int status() {
+            return response == null ? -1 : response.statusCode();
+        }
+    }
+
+    private static volatile ResilientSender shared;
+
+    private final ReporterTransport transport;
+    private final RetryPolicy policy;
+    private final CircuitBreaker breaker;
+
+    ResilientSender(ReporterTransport transport, RetryPolicy policy, CircuitBreaker breaker) {
+        this.transport = transport;
+        this.policy = policy;
+        this.breaker = breaker;
+    }
+
+    /**
+     * The sender over the shared transport, policy and breaker that all reporter clients use.
+     */
+    static ResilientSender shared() {
+        ResilientSender sender = shared;
+        if (sender == null) {
+            synchronized (ResilientSender.class) {
+                sender = shared;
+                if (sender == null) {
+                    sender = new ResilientSender(ReporterTransport.shared(), RetryPolicy.fromSystemProperties(),
+                            CircuitBreaker.shared());
+                    shared = sender;
+                }
+            }
+        }
+        return sender;
+    }
+
+    ReporterTransport transport() {
+        return transport;
+    }
+
+    Duration timeout() {
+        return policy.timeout();
+    }
+
+    boolean isOpen() {
+        return breaker.isOpen();
+    }
+
+    <T> CompletableFuture<Result<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        return attemptAsync(request, handler, 1);
+    }
+
+    /**
+     * A single breaker-guarded attempt, for requests whose body cannot be replayed.
+     */
+    <T> CompletableFuture<Result<T>> sendOnce(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.completedFuture(new Result<>(Outcome.SHORT_CIRCUITED, null, null));
+        }
+        return start(request, handler).handle(this::classify);
+    }
+
+    private <T> CompletableFuture<Result<T>> attemptAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler, int attempt) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.completedFuture(new Result<>(Outcome.SHORT_CIRCUITED, null, null));
+        }
+        return start(request, handler)
+                .handle(this::classify)
+                .thenCompose(result -> reauthorizeAsync(request, handler, result))
+                .thenCompose(result -> {
+                    if (result.outcome() != Outcome.FAILED || attempt >= policy.maxAttempts()) {
+                        return CompletableFuture.completedFuture(result);
+                    }
+                    Executor later = CompletableFuture.delayedExecutor(policy.delayMillis(attempt), TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> attempt + 1, later)
+                            .thenCompose(next -> attemptAsync(request, handler, next));
+                });
+    }
+
+    /**
+     * Sends on the calling thread, sleeping between attempts.
+     */
+    <T> Result<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            if (!breaker.tryAcquire()) {
+                return new Result<>(Outcome.SHORT_CIRCUITED, null, null);
+            }
+            Result<T> result = attempt(request, handler);
+            if (result.status() == 401) {
+                HttpRequest renewed = TokenProvider.reauthorize(request);
+                if (renewed != null) {
+                    request = renewed;
+                    result = attempt(request, handler);
+                }
+            }
+            if (result.outcome() != Outcome.FAILED || attempt >= policy.maxAttempts()) {
+                return result;
+            }
+            Thread.sleep(policy.delayMillis(attempt));
+        }
+    }
+
+    private <T> Result<T> attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws InterruptedException {
+        HttpResponse<T> response;
+        try {
+            response = transport.send(request, handler);
+        } catch (IOException e) {
+            return classify(null, e);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            // No verdict on the backend, but a claimed half-open probe must not stay claimed
+            breaker.abandonProbe();
+            throw e;
+        }
+        return classify(response, null);
+    }
+
+    // A request the client refuses to start fails the returned future like any other error
+    private <T> CompletableFuture<HttpResponse<T>> start(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        try {
+            return transport.sendAsync(request, handler);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Logging in again blocks, so it runs off the client's completion threads
+    private <T> CompletableFuture<Result<T>> reauthorizeAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                             Result<T> result) {
+        if (result.status() != 401) return CompletableFuture.completedFuture(result);
+        return CompletableFuture.supplyAsync(() -> TokenProvider.reauthorize(request))
+                .thenCompose(renewed -> renewed == null
+                        ? CompletableFuture.completedFuture(result)
+                        : transport.sendAsync(renewed, handler).handle(this::classify));
+    }
+
+    private <T> Result<T> classify(HttpResponse<T> response, Throwable error) {
+        if (error != null) {
+            breaker.recordFailure();
+            return new Result<>(Outcome.FAILED, null, error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        }
+        if (RetryPolicy.isRetryable(response.statusCode())) {
+            breaker.recordFailure();
+            return new Result<>(Outcome.FAILED, response, null);
+        }
+        // A 4xx still proves the backend is up
+        breaker.recordSuccess();
+        return new Result<>(response.statusCode() >= 400 ? Outcome.REJECTED : Outcome.DELIVERED, response, null);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.reporting;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry budget and backoff for reporter requests.
+ * <p>
+ * Delays grow exponentially from {@code baseDelay} up to {@code maxDelay} and use full
+ * jitter (a uniform random delay below the cap), so clients that failed together do
+ * not retry together.
+ */
+final class RetryPolicy {
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+    private final Duration timeout;
+
+    RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration timeout) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.timeout = timeout;
+    }
+
+    static RetryPolicy fromSystemProperties() {
+        return new RetryPolicy(
+                Integer.getInteger("reporter.retry.maxAttempts", 3),
+                Duration.ofMillis(Long.getLong("reporter.retry.baseDelayMs", 200)),
+                Duration.ofMillis(Long.getLong("reporter.retry.maxDelayMs", 5000)),
+                Duration.ofMillis(Long.getLong("reporter.timeoutMs", 10000)));
+    }
+
+    int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Per-attempt request timeout.
+     */
+    Duration timeout() {
+        return timeout;
+    }
+
+    /**
+     * Delay before the given retry (1 for the first retry).
+     */
+    long delayMillis(int retry) {
+        long cap = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(retry - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    // Server errors and throttling may succeed later; other 4xx responses never will
+    static boolean isRetryable(int status) {
+        return status >= 500 || status == 408 || status == 429;
+    }
+}
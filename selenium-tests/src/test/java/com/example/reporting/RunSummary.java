@@ -0,0 +1,93 @@
+package com.example.reporting;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Authoritative test counts and durations for one run, overall and per tag and test class.
+ * <p>
+ * Parallel test threads only touch {@link LongAdder} cells, so counting never contends;
+ * the sums are read when a {@link #snapshot()} is sent. The backend stores the snapshot
+ * as is instead of incrementing its own counters once per test.
+ */
+final class RunSummary {
+    private final Counter total = new Counter();
+    private final Map<String, Counter> byTag = new ConcurrentHashMap<>();
+    private final Map<String, Counter> byClass = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    void testStarted(String className, List<String> tags) {
+        total.started.increment();
+        byClass.computeIfAbsent(className, k -> new Counter()).started.increment();
+        for (String tag : tags) {
+            byTag.computeIfAbsent(tag, k -> new Counter()).started.increment();
+        }
+    }
+
+    void testFinished(String className, List<String> tags, String status, long durationMillis) {
+        total.finished(status, durationMillis);
+        byClass.computeIfAbsent(className, k -> new Counter()).finished(status, durationMillis);
+        for (String tag : tags) {
+            byTag.computeIfAbsent(tag, k -> new Counter()).finished(status, durationMillis);
+        }
+    }
+
+    long failed() {
+        return total.failed.sum();
+    }
+
+    long durationMillis() {
+        return total.durationMillis.sum();
+    }
+
+    /**
+     * Grows with every start and finish; used to skip sending an unchanged summary.
+     */
+    long changes() {
+        return total.started.sum() + total.passed.sum() + total.failed.sum() + total.skipped.sum();
+    }
+
+    /**
+     * Sums the counters; a test finishing meanwhile may be partly included, which the
+     * next snapshot corrects.
+     */
+    ReporterPayload.Summary snapshot() {
+        return new ReporterPayload.Summary(sequence.incrementAndGet(), total.snapshot(),
+                snapshot(byTag), snapshot(byClass));
+    }
+
+    private static Map<String, ReporterPayload.Summary.Counts> snapshot(Map<String, Counter> counters) {
+        Map<String, ReporterPayload.Summary.Counts> counts = new TreeMap<>();
+        counters.forEach((key, counter) -> counts.put(key, counter.snapshot()));
+        return counts;
+    }
+
+    private static final class Counter {
+        final LongAdder started = new LongAdder();
+        final LongAdder passed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder durationMillis = new LongAdder();
+        final LongAccumulator maxDurationMillis = new LongAccumulator(Math::max, 0);
+
+        void finished(String status, long millis) {
+            switch (status) {
+                case "PASS" -> passed.increment();
+                case "FAIL" -> failed.increment();
+                default -> skipped.increment();
+            }
+            durationMillis.add(millis);
+            maxDurationMillis.accumulate(millis);
+        }
+
+        ReporterPayload.Summary.Counts snapshot() {
+            return new ReporterPayload.Summary.Counts(started.sum(), passed.sum(), failed.sum(), skipped.sum(),
+                    durationMillis.sum(), maxDurationMillis.get());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.reporting;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Built-in {@link ScreenshotPolicy} implementations.
+ */
+final class ScreenshotPolicies {
+    private static final ReporterLog LOG = ReporterLog.get("Screenshots");
+
+    private ScreenshotPolicies() {
+    }
+
+    static ScreenshotPolicy always() {
+        return (driver, status) -> grab(driver);
+    }
+
+    static ScreenshotPolicy onFailure() {
+        return (driver, status) -> isFailure(status) ? grab(driver) : null;
+    }
+
+    static ScreenshotPolicy everyNth(int n) {
+        int every = Math.max(1, n);
+        return new ScreenshotPolicy() {
+            private int step;
+
+            @Override
+            public byte[] capture(TakesScreenshot driver, String status) {
+                boolean sampled = step++ % every == 0;
+                return sampled || isFailure(status) ? grab(driver) : null;
+            }
+        };
+    }
+
+    static ScreenshotPolicy onChange(int maxDistance) {
+        return new ScreenshotPolicy() {
+            private Long lastHash;
+
+            @Override
+            public byte[] capture(TakesScreenshot driver, String status) {
+                byte[] png = grab(driver);
+                if (png == null) return null;
+                BufferedImage image = decode(png);
+                if (image == null) return png;
+                long hash = differenceHash(image);
+                boolean changed = lastHash == null || Long.bitCount(hash ^ lastHash) > maxDistance;
+                if (!changed && !isFailure(status)) return null;
+                lastHash = hash;
+                return png;
+            }
+        };
+    }
+
+    static ScreenshotPolicy downscaled(double scale, float quality) {
+        return (driver, status) -> {
+            byte[] png = grab(driver);
+            if (png == null) return null;
+            BufferedImage image = decode(png);
+            if (image == null) return png;
+            byte[] jpeg = toJpeg(resize(image, scale), quality);
+            return jpeg != null ? jpeg : png;
+        };
+    }
+
+    private static boolean isFailure(String status) {
+        return "FAIL".equalsIgnoreCase(status);
+    }
+
+    /**
+     * Takes a screenshot, timing it in {@link ReporterMetrics#SCREENSHOT}.
+     */
+    static <X> X capture(TakesScreenshot driver, OutputType<X> type) {
+        long start = System.nanoTime();
+        try {
+            return driver.getScreenshotAs(type);
+        } finally {
+            ReporterMetrics.SCREENSHOT.recordSince(start);
+        }
+    }
+
+    private static byte[] grab(TakesScreenshot driver) {
+        if (driver == null) return null;
+        try {
+            return capture(driver, OutputType.BYTES);
+        } catch (Exception e) {
+            LOG.warn("Failed to capture screenshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static BufferedImage decode(byte[] data) {
+        try {
+            return ImageIO.read(new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            LOG.warn("Failed to decode screenshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // dHash: compare horizontally adjacent pixels of a 9x8 grayscale thumbnail
+    static long differenceHash(BufferedImage image) {
+        BufferedImage thumb = new BufferedImage(9, 8, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = thumb.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, 9, 8, null);
+        g.dispose();
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                int left = thumb.getRaster().getSample(x, y, 0);
+                int right = thumb.getRaster().getSample(x + 1, y, 0);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    private static BufferedImage resize(BufferedImage image, double scale) {
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        // JPEG has no alpha channel, so draw onto an RGB canvas
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    private static byte[] toJpeg(BufferedImage image, float quality) {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            LOG.warn("Failed to re-encode screenshot: " + e.getMessage());
+            return null;
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
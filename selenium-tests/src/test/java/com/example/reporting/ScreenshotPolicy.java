@@ -0,0 +1,56 @@
+package com.example.reporting;
+
+import org.openqa.selenium.TakesScreenshot;
+
+/**
+ * Decides whether a step gets a screenshot, and in what form.
+ * <p>
+ * Policies are selected with {@code -Dreporter.screenshots=<spec>} or the
+ * {@code screenshotPolicy} suite parameter; see {@link #fromSpec(String)}.
+ * A policy instance holds per-test state (step counters, last frame hash), so
+ * each test method gets its own.
+ */
+public interface ScreenshotPolicy {
+
+    /**
+     * Captures a screenshot for a step with the given status.
+     *
+     * @return image bytes (PNG or JPEG), or {@code null} if the policy skips this step
+     */
+    byte[] capture(TakesScreenshot driver, String status);
+
+    /**
+     * Builds a policy from a spec string:
+     * <ul>
+     *   <li>{@code always} (default) — every step</li>
+     *   <li>{@code on-failure} — only steps with status FAIL</li>
+     *   <li>{@code every:N} — every Nth step, plus all failures</li>
+     *   <li>{@code on-change[:distance]} — only when the perceptual hash moved more than
+     *       {@code distance} bits (default 4) since the last attached frame, plus all failures</li>
+     *   <li>{@code downscaled[:scale[:quality]]} — every step, resized (default 0.5) and
+     *       re-encoded as JPEG (default quality 0.7)</li>
+     * </ul>
+     */
+    static ScreenshotPolicy fromSpec(String spec) {
+        String[] parts = spec == null || spec.isBlank() ? new String[]{"always"} : spec.trim().toLowerCase().split(":");
+        switch (parts[0]) {
+            case "always":
+                return ScreenshotPolicies.always();
+            case "on-failure":
+            case "on-fail":
+                return ScreenshotPolicies.onFailure();
+            case "every":
+            case "sampled":
+                return ScreenshotPolicies.everyNth(parts.length > 1 ? Integer.parseInt(parts[1]) : 5);
+            case "on-change":
+            case "diff":
+                return ScreenshotPolicies.onChange(parts.length > 1 ? Integer.parseInt(parts[1]) : 4);
+            case "downscaled":
+                return ScreenshotPolicies.downscaled(
+                        parts.length > 1 ? Double.parseDouble(parts[1]) : 0.5,
+                        parts.length > 2 ? Float.parseFloat(parts[2]) : 0.7f);
+            default:
+                throw new IllegalArgumentException("Unknown screenshot policy: " + spec);
+        }
+    }
+}
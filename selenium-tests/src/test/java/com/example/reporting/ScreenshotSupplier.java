@@ -0,0 +1,13 @@
+package com.example.reporting;
+
+/**
+ * Lazily produces a step screenshot once the step's status is known.
+ */
+@FunctionalInterface
+public interface ScreenshotSupplier {
+
+    /**
+     * @return image bytes, or {@code null} when no screenshot should be attached
+     */
+    byte[] get(String status);
+}
@@ -0,0 +1,263 @@
+package com.example.reporting;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In-process stand-in for the reporter backend.
+ * <p>
+ * {@link #start()} accepts every request: bodies are read and discarded and every call is
+ * answered with {@code 201 {}}, so measurements see the client's cost and the loopback
+ * round trip, nothing more. {@link #startInMemory()} implements the executions routes
+ * instead, keeping runs and test cases in memory and answering unknown runs and test cases
+ * with a JSON 404 and unknown routes with a plain 404, like the real backend. It parses
+ * each body, so it costs a little more per request.
+ */
+public final class StubReporterServer implements AutoCloseable {
+    private static final byte[] EMPTY_JSON = "{}".getBytes(StandardCharsets.UTF_8);
+    private static final String PREFIX = "/api/executions/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    // Run ID -> its test case IDs; only used in memory mode
+    private final Map<String, Set<String>> runs = new ConcurrentHashMap<>();
+    private final LongAdder events = new LongAdder();
+
+    private StubReporterServer(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts an accept-everything stub on an ephemeral loopback port.
+     */
+    public static StubReporterServer start() throws IOException {
+        return start(false);
+    }
+
+    /**
+     * Starts a stub that implements the executions routes in memory, on an ephemeral loopback port.
+     */
+    public static StubReporterServer startInMemory() throws IOException {
+        return start(true);
+    }
+
+    private static StubReporterServer start(boolean inMemory) throws IOException {
+        // The JDK server writes headers and body separately; without this, Nagle plus delayed
+        // ACKs add ~40ms to every synchronous request and hide the client's own cost
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        StubReporterServer stub = new StubReporterServer(server, executor);
+        server.createContext("/", inMemory ? stub::route : stub::handle);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            for (int read; (read = body.read(buffer)) != -1; ) {
+                total += read;
+            }
+            requests.increment();
+            bytesReceived.add(total);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(201, EMPTY_JSON.length);
+            exchange.getResponseBody().write(EMPTY_JSON);
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            try {
+                dispatch(exchange);
+            } catch (RuntimeException e) {
+                // Malformed JSON; parsing happens before any response is started
+                respond(exchange, 400, "{\"message\":\"Malformed body\",\"applied\":0}");
+            }
+        }
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        String[] segments = path.startsWith(PREFIX) ? path.substring(PREFIX.length()).split("/") : new String[0];
+        if ("PUT".equals(method) && segments.length == 2 && "artifacts".equals(segments[0])) {
+            readBody(exchange);
+            respond(exchange, 201, "{\"id\":\"" + segments[1] + "\"}");
+        } else if (!"POST".equals(method) || segments.length < 2 || !"runs".equals(segments[0])) {
+            readBody(exchange);
+            notFound(exchange);
+        } else if (segments.length == 2 && "start".equals(segments[1])) {
+            JsonObject body = json(readBody(exchange));
+            String runId = body.has("runId") ? body.get("runId").getAsString() : UUID.randomUUID().toString();
+            runs.putIfAbsent(runId, ConcurrentHashMap.newKeySet());
+            respond(exchange, 201, "{\"id\":\"" + runId + "\",\"status\":\"RUNNING\"}");
+        } else {
+            runRoute(exchange, segments);
+        }
+    }
+
+    private void runRoute(HttpExchange exchange, String[] segments) throws IOException {
+        Set<String> testCases = runs.get(segments[1]);
+        if (testCases == null) {
+            readBody(exchange);
+            respond(exchange, 404, "{\"message\":\"Run not found\",\"applied\":0}");
+            return;
+        }
+        String action = String.join("/", Arrays.copyOfRange(segments, 2, segments.length));
+        switch (action) {
+            case "test-cases/start" -> {
+                JsonObject body = json(readBody(exchange));
+                String testCaseId = body.has("testCaseId") ? body.get("testCaseId").getAsString() : UUID.randomUUID().toString();
+                testCases.add(testCaseId);
+                events.increment();
+                respond(exchange, 201, "{\"id\":\"" + testCaseId + "\"}");
+            }
+            case "events/batch" -> {
+                int applied = 0;
+                for (JsonElement event : json(readBody(exchange)).getAsJsonArray("events")) {
+                    apply(testCases, event.getAsJsonObject());
+                    applied++;
+                }
+                respond(exchange, 201, "{\"accepted\":" + applied + ",\"duplicates\":0}");
+            }
+            case "stream" -> {
+                int applied = 0;
+                try (BufferedReader lines = new BufferedReader(new InputStreamReader(body(exchange), StandardCharsets.UTF_8))) {
+                    for (String line; (line = lines.readLine()) != null; ) {
+                        if (line.isBlank()) continue;
+                        apply(testCases, JsonParser.parseString(line).getAsJsonObject());
+                        applied++;
+                    }
+                }
+                respond(exchange, 200, "{\"applied\":" + applied + "}");
+            }
+            case "summary", "finish" -> {
+                readBody(exchange);
+                respond(exchange, 200, "{}");
+            }
+            default -> {
+                readBody(exchange);
+                String[] parts = action.split("/");
+                if (parts.length == 3 && "test-cases".equals(parts[0])
+                        && ("step".equals(parts[2]) || "error".equals(parts[2]) || "finish".equals(parts[2]))) {
+                    if (testCases.contains(parts[1])) {
+                        events.increment();
+                        respond(exchange, 201, "{}");
+                    } else {
+                        respond(exchange, 404, "{\"message\":\"Run or test case not found\"}");
+                    }
+                } else {
+                    notFound(exchange);
+                }
+            }
+        }
+    }
+
+    private void apply(Set<String> testCases, JsonObject event) {
+        if ("testCaseStart".equals(event.get("type").getAsString())) {
+            testCases.add(event.get("testCaseId").getAsString());
+        }
+        events.increment();
+    }
+
+    private InputStream body(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        return "gzip".equalsIgnoreCase(encoding) ? new GZIPInputStream(body) : body;
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream body = body(exchange)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.transferTo(out);
+            bytesReceived.add(out.size());
+            return out.toByteArray();
+        }
+    }
+
+    private static JsonObject json(byte[] body) {
+        return body.length == 0 ? new JsonObject() : JsonParser.parseString(new String(body, StandardCharsets.UTF_8))
+                .getAsJsonObject();
+    }
+
+    // Express answers unknown routes with HTML; clients tell a missing route from a missing run by that
+    private static void notFound(HttpExchange exchange) throws IOException {
+        byte[] body = "Not Found".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html");
+        exchange.sendResponseHeaders(404, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long bytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    /**
+     * Runs started; always 0 for the accept-everything stub.
+     */
+    public int runs() {
+        return runs.size();
+    }
+
+    /**
+     * Test case events applied, whether sent alone, batched or streamed; in memory mode only.
+     */
+    public long events() {
+        return events.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
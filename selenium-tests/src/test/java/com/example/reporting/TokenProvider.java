@@ -0,0 +1,209 @@
+package com.example.reporting;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The reporter's bearer token, shared by every client in the process.
+ * <p>
+ * {@link #current()} is a plain atomic read, so senders never contend on it. The token is
+ * refreshed on a background thread ahead of the expiry in its JWT {@code exp} claim,
+ * {@code reporter.auth.refreshAheadSeconds} (120) before it, or half way through the
+ * remaining lifetime for tokens shorter than that. A request answered with 401 is retried
+ * once through {@link #reauthorize}: the first sender holding the rejected token logs in
+ * again while the others wait on it, and all of them retry with the new token. After a
+ * failed login no new attempt is made for {@code reporter.auth.retrySeconds} (30); requests
+ * rejected meanwhile keep their 401 instead of each trying to log in.
+ * Credentials come from {@code reporter.email} and {@code reporter.password}.
+ */
+public final class TokenProvider {
+    private static final ReporterLog LOG = ReporterLog.get("TokenProvider");
+    private static volatile TokenProvider shared;
+    // Tokens of clients built without the shared provider (load generator, benchmarks), by API base
+    private static final Map<String, String> clientTokens = new ConcurrentHashMap<>();
+
+    // expiresAtMillis is 0 when the token carries no readable exp claim
+    private record Token(String value, long expiresAtMillis) {
+    }
+
+    private final String apiBase;
+    private final AtomicReference<Token> token = new AtomicReference<>(new Token("", 0));
+    private final Object loginLock = new Object();
+    private final ScheduledExecutorService refresher;
+    private final long refreshAheadMillis = Long.getLong("reporter.auth.refreshAheadSeconds", 120) * 1000;
+    private final long retryMillis = Long.getLong("reporter.auth.retrySeconds", 30) * 1000;
+    // Guarded by loginLock
+    private ScheduledFuture<?> pendingRefresh;
+    private long lastFailedLogin;
+
+    private TokenProvider(String apiBase) {
+        this.apiBase = apiBase;
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reporter-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The process-wide provider, logging in on first use. A failed first login leaves an
+     * empty token and is retried in the background and on the first 401.
+     */
+    public static TokenProvider shared(String apiBase) {
+        TokenProvider provider = shared;
+        if (provider == null) {
+            synchronized (TokenProvider.class) {
+                provider = shared;
+                if (provider == null) {
+                    provider = new TokenProvider(apiBase);
+                    synchronized (provider.loginLock) {
+                        if (!provider.login()) provider.scheduleRefresh(provider.retryMillis);
+                    }
+                    shared = provider;
+                }
+            }
+        }
+        return provider;
+    }
+
+    public String current() {
+        return token.get().value();
+    }
+
+    /**
+     * The {@code Authorization} header for a request: the shared provider's current token
+     * once it exists, else {@code token}. Events queued before a refresh go out with the new one.
+     */
+    static String authorization(String token) {
+        TokenProvider provider = shared;
+        return "Bearer " + (provider != null ? provider.current() : token);
+    }
+
+    /**
+     * Remembers the token a client was built with, for events it queues: those are persisted
+     * without a token and authorized through {@link #authorizationFor} when they are sent.
+     */
+    static void register(String apiBase, String token) {
+        if (token != null) clientTokens.put(apiBase, token);
+    }
+
+    /**
+     * The {@code Authorization} header for a queued event bound for {@code apiBase}.
+     */
+    static String authorizationFor(String apiBase) {
+        return authorization(clientTokens.getOrDefault(apiBase, ""));
+    }
+
+    /**
+     * A copy of a request the backend answered with 401, carrying a newer token, or
+     * {@code null} when no newer token can be had.
+     */
+    static HttpRequest reauthorize(HttpRequest request) {
+        TokenProvider provider = shared;
+        if (provider == null) return null;
+        String header = request.headers().firstValue("Authorization").orElse(null);
+        if (header == null || !header.startsWith("Bearer ")) return null;
+        String renewed = provider.renew(header.substring("Bearer ".length()));
+        if (renewed == null) return null;
+        return HttpRequest.newBuilder(request, (name, value) -> !"Authorization".equalsIgnoreCase(name))
+                .header("Authorization", "Bearer " + renewed)
+                .build();
+    }
+
+    // Every sender holding the rejected token funnels through here, and only the first logs in
+    private String renew(String rejected) {
+        String value = current();
+        if (!value.equals(rejected)) return value;
+        synchronized (loginLock) {
+            value = current();
+            if (!value.equals(rejected)) return value;
+            if (System.currentTimeMillis() - lastFailedLogin < retryMillis) return null;
+            return login() ? current() : null;
+        }
+    }
+
+    private void refreshInBackground() {
+        synchronized (loginLock) {
+            if (login()) return;
+            // Keep trying while the old token is still good, more often as it runs out
+            long remaining = token.get().expiresAtMillis() - System.currentTimeMillis();
+            scheduleRefresh(remaining > 2000 ? Math.min(retryMillis, remaining / 2) : retryMillis);
+        }
+    }
+
+    // Called with loginLock held
+    private boolean login() {
+        try {
+            Token fresh = fetchToken();
+            token.set(fresh);
+            lastFailedLogin = 0;
+            long remaining = fresh.expiresAtMillis() - System.currentTimeMillis();
+            if (fresh.expiresAtMillis() > 0) {
+                scheduleRefresh(Math.max(remaining - refreshAheadMillis, remaining / 2));
+            }
+            LOG.info("Authenticated successfully" + (fresh.expiresAtMillis() > 0
+                    ? ", token expires in " + Duration.ofMillis(remaining).toSeconds() + "s" : ""));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOG.error("Authentication failed: " + e);
+        }
+        lastFailedLogin = System.currentTimeMillis();
+        return false;
+    }
+
+    private void scheduleRefresh(long delayMillis) {
+        if (pendingRefresh != null) pendingRefresh.cancel(false);
+        pendingRefresh = refresher.schedule(this::refreshInBackground, Math.max(1000, delayMillis),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private Token fetchToken() throws IOException, InterruptedException {
+        JsonObject loginBody = new JsonObject();
+        loginBody.addProperty("username", System.getProperty("reporter.email", "Hariprasanthtest@gmail.com"));
+        loginBody.addProperty("password", System.getProperty("reporter.password", "Inferno0!"));
+
+        ReporterTransport transport = ReporterTransport.shared();
+        HttpRequest request = transport.request(URI.create(apiBase + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(loginBody.toString(), StandardCharsets.UTF_8))
+                .timeout(Duration.ofSeconds(10))
+                .build();
+
+        HttpResponse<String> response = transport.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to authenticate: " + response.statusCode());
+        }
+        String value = JsonParser.parseString(response.body()).getAsJsonObject().get("token").getAsString();
+        return new Token(value, expiresAt(value));
+    }
+
+    // The exp claim of an unverified JWT, in epoch millis; only used to time the refresh
+    static long expiresAt(String jwt) {
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) return 0;
+        try {
+            JsonObject claims = JsonParser.parseString(
+                    new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)).getAsJsonObject();
+            return claims.has("exp") ? claims.get("exp").getAsLong() * 1000 : 0;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
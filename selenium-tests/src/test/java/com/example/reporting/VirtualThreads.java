@@ -0,0 +1,136 @@
+package com.example.reporting;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in virtual threads for blocking reporter I/O and API-only checks.
+ * <p>
+ * With {@code -Dreporter.virtualThreads=true} on Java 21+ the reporter's sender thread and
+ * HTTP client executors are virtual; elsewhere, or on older runtimes, everything stays on
+ * platform threads. The Java 21 API is reached reflectively so the build still targets 17.
+ */
+public final class VirtualThreads {
+    private static final ReporterLog LOG = ReporterLog.get("VirtualThreads");
+    private static final Method OF_VIRTUAL = lookup(Thread.class, "ofVirtual");
+    private static final Method NEW_PER_TASK = lookup(Executors.class, "newVirtualThreadPerTaskExecutor");
+    private static final boolean ENABLED = Boolean.getBoolean("reporter.virtualThreads") && probe();
+
+    private VirtualThreads() {
+    }
+
+    private static Method lookup(Class<?> owner, String name) {
+        try {
+            return owner.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    // Java 19 and 20 have the methods but throw unless preview features are enabled
+    private static boolean probe() {
+        if (OF_VIRTUAL == null || NEW_PER_TASK == null) {
+            LOG.warn("reporter.virtualThreads needs Java 21+; running on " + Runtime.version() + " platform threads");
+            return false;
+        }
+        try {
+            factory("reporter-probe");
+            return true;
+        } catch (RuntimeException e) {
+            LOG.warn("Virtual threads unavailable: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Whether virtual threads were requested and this runtime supports them.
+     */
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Starts {@code task} on a virtual thread when enabled, else on a platform daemon thread.
+     */
+    static Thread start(String name, Runnable task) {
+        Thread thread;
+        if (ENABLED) {
+            thread = factory(name).newThread(task);
+        } else {
+            thread = new Thread(task, name);
+            // Virtual threads are always daemons; match that
+            thread.setDaemon(true);
+        }
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * One new thread per task: virtual when enabled, otherwise a cached pool of platform
+     * daemon threads. The caller owns the executor and must close it.
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (ENABLED) {
+            try {
+                return (ExecutorService) NEW_PER_TASK.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a virtual thread executor", e);
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "per-task-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs independent I/O-bound checks concurrently, one thread each, and returns their
+     * results in order. Meant for API-only tests that fan out many requests from a single
+     * test method instead of sizing TestNG's pool for them.
+     *
+     * @throws ExecutionException wrapping the first check that failed
+     * @throws TimeoutException if the checks did not all finish in time; unfinished ones are cancelled
+     */
+    public static <T> List<T> invokeAll(List<? extends Callable<T>> checks, Duration timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService executor = newPerTaskExecutor();
+        try {
+            List<Future<T>> futures = executor.invokeAll(checks, timeout.toNanos(), TimeUnit.NANOSECONDS);
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                if (future.isCancelled()) {
+                    throw new TimeoutException(checks.size() + " checks did not finish within " + timeout);
+                }
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory factory(String name) {
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            // Invoke through the public interface; the builder implementation class is not accessible
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class).invoke(builder, name);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
+        }
+    }
+}